@@ -27,9 +27,11 @@
 
 package graphantastic;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import processing.core.PApplet;
 import processing.core.PConstants;
 import processing.core.PFont;
@@ -40,6 +42,12 @@ import processing.core.PFont;
  * @author ##author##
  */
 public class GAxis implements PConstants {
+	// The maximum number of tick sets kept in the tick cache
+	public static final int TICK_CACHE_SIZE = 32;
+
+	// The maximum number of entries kept in the tick label caches
+	public static final int TICK_LABEL_CACHE_SIZE = 1000;
+
 	// The parent Processing applet
 	protected final PApplet parent;
 
@@ -61,7 +69,21 @@ public class GAxis implements PConstants {
 	protected ArrayList<Float> plotTicks;
 	protected ArrayList<Boolean> ticksInside;
 	protected ArrayList<String> tickLabels;
+	protected float[] tickLabelWidths;
+	protected boolean tickLabelWidthsUpdated;
+	protected GTickSet labelsTickSet;
+	protected boolean labelsExpTickLabels;
+	protected final HashMap<Float, String> tickLabelCache;
+	protected int tickLabelCacheMode;
+	protected final HashMap<String, Float> tickLabelWidthCache;
+	protected String tickLabelWidthFontName;
+	protected int tickLabelWidthFontSize;
 	protected boolean fixedTicks;
+	protected GTickSet tickSet;
+	protected final GTickSet tickSetKey;
+	protected final LinkedHashMap<GTickSet, GTickSet> tickCache;
+	protected final GTickKey tickKey;
+	protected final LinkedHashMap<GTickKey, GTickSet> limTickCache;
 	protected float tickLength;
 	protected float smallTickLength;
 	protected boolean expTickLabels;
@@ -78,6 +100,7 @@ public class GAxis implements PConstants {
 	protected int fontColor;
 	protected int fontSize;
 	protected PFont font;
+	protected Thread fontThread;
 
 	/**
 	 * GAxis constructor
@@ -120,7 +143,21 @@ public class GAxis implements PConstants {
 		plotTicks = new ArrayList<Float>(nTicks);
 		ticksInside = new ArrayList<Boolean>(nTicks);
 		tickLabels = new ArrayList<String>(nTicks);
+		tickLabelWidths = new float[nTicks];
+		tickLabelWidthsUpdated = false;
+		labelsTickSet = null;
+		labelsExpTickLabels = false;
+		tickLabelCache = new HashMap<Float, String>();
+		tickLabelCacheMode = -1;
+		tickLabelWidthCache = new HashMap<String, Float>();
+		tickLabelWidthFontName = null;
+		tickLabelWidthFontSize = -1;
 		fixedTicks = false;
+		tickSet = null;
+		tickSetKey = new GTickSet();
+		tickCache = new LinkedHashMap<GTickSet, GTickSet>(TICK_CACHE_SIZE, 0.75f, true);
+		tickKey = new GTickKey();
+		limTickCache = new LinkedHashMap<GTickKey, GTickSet>(TICK_CACHE_SIZE, 0.75f, true);
 		tickLength = 3;
 		smallTickLength = 2;
 		expTickLabels = false;
@@ -134,7 +171,8 @@ public class GAxis implements PConstants {
 		fontName = "SansSerif.plain";
 		fontColor = this.parent.color(0);
 		fontSize = 11;
-		font = this.parent.createFont(fontName, fontSize);
+		font = GFontRegistry.obtain(this.parent, fontName, fontSize);
+		fontThread = Thread.currentThread();
 
 		// Update the arrayLists
 		updateTicks();
@@ -163,7 +201,68 @@ public class GAxis implements PConstants {
 	 * @return the rounded number
 	 */
 	protected float roundPlus(float number, int sigDigits) {
-		return BigDecimal.valueOf(number).setScale(sigDigits, BigDecimal.ROUND_HALF_UP).floatValue();
+		return GTickSet.unitsToValue(GTickSet.valueToUnits(number, sigDigits), sigDigits);
+	}
+
+	/**
+	 * Sets the axis ticks from a tick set description. The tick values are taken from the tick cache if the same tick
+	 * set was used recently, and the ticks array list is only modified if the tick set changed
+	 * 
+	 * @param tickLog true if the ticks are logarithmic
+	 * @param precision the number of decimal digits of the linear ticks
+	 * @param first the first linear tick in units of 10^-precision, or the first exponent for logarithmic ticks
+	 * @param step the linear tick separation in units of 10^-precision. Not used for logarithmic ticks
+	 * @param n the number of linear ticks, or the number of decades for logarithmic ticks
+	 */
+	protected void useTickSet(boolean tickLog, int precision, long first, long step, int n) {
+		tickSetKey.set(tickLog, precision, first, step, n);
+
+		if (tickSet != null && tickSet.equals(tickSetKey)) {
+			return;
+		}
+
+		GTickSet cachedTickSet = tickCache.get(tickSetKey);
+
+		if (cachedTickSet == null) {
+			if (tickCache.size() >= TICK_CACHE_SIZE) {
+				// Remove the least recently used tick set
+				Iterator<GTickSet> it = tickCache.keySet().iterator();
+				it.next();
+				it.remove();
+			}
+
+			cachedTickSet = new GTickSet(tickSetKey);
+			tickCache.put(cachedTickSet, cachedTickSet);
+		}
+
+		applyTickSet(cachedTickSet);
+	}
+
+	/**
+	 * Sets the axis ticks from a tick set. The ticks array list is only modified if the tick set changed
+	 * 
+	 * @param newTickSet the new tick set
+	 */
+	protected void applyTickSet(GTickSet newTickSet) {
+		if (newTickSet.equals(tickSet)) {
+			return;
+		}
+
+		tickSet = newTickSet;
+		float[] values = tickSet.getTicksRef();
+		adaptSize(ticks, values.length);
+
+		for (int i = 0; i < values.length; i++) {
+			ticks.set(i, values[i]);
+		}
+	}
+
+	/**
+	 * Clears the axis ticks
+	 */
+	protected void clearTicks() {
+		tickSet = null;
+		ticks.clear();
 	}
 
 	/**
@@ -183,14 +282,35 @@ public class GAxis implements PConstants {
 	}
 
 	/**
-	 * Updates the axis ticks
+	 * Updates the axis ticks. The tick set is taken from the limits cache if the same limits, scale and tick
+	 * properties were used recently, skipping the tick calculation
 	 */
 	protected void updateTicks() {
+		tickKey.set(log, lim[0], lim[1], nTicks, ticksSeparation);
+		GTickSet cachedTickSet = limTickCache.get(tickKey);
+
+		if (cachedTickSet != null) {
+			applyTickSet(cachedTickSet);
+			return;
+		}
+
 		if (log) {
 			obtainLogarithmicTicks();
 		} else {
 			obtainLinearTicks();
 		}
+
+		// Empty tick sets are cheap to calculate and are not cached
+		if (tickSet != null) {
+			if (limTickCache.size() >= TICK_CACHE_SIZE) {
+				// Remove the least recently used limits
+				Iterator<GTickKey> it = limTickCache.keySet().iterator();
+				it.next();
+				it.remove();
+			}
+
+			limTickCache.put(new GTickKey(tickKey), tickSet);
+		}
 	}
 
 	/**
@@ -209,18 +329,7 @@ public class GAxis implements PConstants {
 		}
 
 		// Calculate the ticks
-		int n = (lastExp - firstExp) * 9 + 1;
-		adaptSize(ticks, n);
-
-		for (int exp = firstExp; exp < lastExp; exp++) {
-			float base = roundPlus(PApplet.exp(exp * GPlot.LOG10), -exp);
-
-			for (int i = 0; i < 9; i++) {
-				ticks.set((exp - firstExp) * 9 + i, (i + 1) * base);
-			}
-		}
-
-		ticks.set(ticks.size() - 1, roundPlus(PApplet.exp(lastExp * GPlot.LOG10), -lastExp));
+		useTickSet(true, 0, firstExp, 0, lastExp - firstExp);
 	}
 
 	/**
@@ -259,23 +368,21 @@ public class GAxis implements PConstants {
 			// Obtain the first tick
 			float firstTick = lim[0] + ((lim[1] - lim[0]) - nSteps * step) / 2;
 
-			// Subtract some steps to be sure we have all
-			firstTick = roundPlus(firstTick - 2 * step, sigDigits);
+			// Subtract some steps to be sure we have all. Work with integer units to avoid rounding errors
+			long stepUnits = GTickSet.valueToUnits(step, sigDigits);
+			long firstUnits = GTickSet.valueToUnits(firstTick - 2 * step, sigDigits);
+			firstTick = GTickSet.unitsToValue(firstUnits, sigDigits);
 
 			while ((lim[1] - firstTick) * (lim[0] - firstTick) > 0) {
-				firstTick = roundPlus(firstTick + step, sigDigits);
+				firstUnits += stepUnits;
+				firstTick = GTickSet.unitsToValue(firstUnits, sigDigits);
 			}
 
 			// Calculate the rest of the ticks
 			int n = PApplet.floor(Math.abs((lim[1] - firstTick) / step)) + 1;
-			adaptSize(ticks, n);
-			ticks.set(0, firstTick);
-
-			for (int i = 1; i < n; i++) {
-				ticks.set(i, roundPlus(ticks.get(i - 1) + step, sigDigits));
-			}
+			useTickSet(false, sigDigits, firstUnits, stepUnits, n);
 		} else {
-			ticks.clear();
+			clearTicks();
 		}
 	}
 
@@ -329,45 +436,112 @@ public class GAxis implements PConstants {
 	}
 
 	/**
-	 * Updates the axis tick labels
+	 * Updates the axis tick labels. The label strings are taken from the tick label cache when the tick values repeat
 	 */
 	protected void updateTickLabels() {
+		// Nothing to do if the labels were calculated for the current tick set
+		if (tickSet != null && tickSet == labelsTickSet && expTickLabels == labelsExpTickLabels) {
+			return;
+		}
+
+		// Clear the cache if the label format changed or it has grown too much
+		int mode = (log ? 1 : 0) + (expTickLabels ? 2 : 0);
+
+		if (mode != tickLabelCacheMode || tickLabelCache.size() > TICK_LABEL_CACHE_SIZE) {
+			tickLabelCache.clear();
+			tickLabelCacheMode = mode;
+		}
+
 		int n = ticks.size();
 		adaptSize(tickLabels, n);
 
-		if (log) {
-			for (int i = 0; i < n; i++) {
-				float tick = ticks.get(i);
+		for (int i = 0; i < n; i++) {
+			Float tick = ticks.get(i);
+			String label = tickLabelCache.get(tick);
 
-				if (tick > 0) {
-					float logValue = PApplet.log(tick) / GPlot.LOG10;
-					boolean isExactLogValue = Math.abs(logValue - Math.round(logValue)) < 0.0001;
+			if (label == null) {
+				label = formatTickLabel(tick);
+				tickLabelCache.put(tick, label);
+			}
 
-					if (isExactLogValue) {
-						logValue = Math.round(logValue);
+			tickLabels.set(i, label);
+		}
+
+		labelsTickSet = tickSet;
+		labelsExpTickLabels = expTickLabels;
+		tickLabelWidthsUpdated = false;
+	}
 
-						if (expTickLabels) {
-							tickLabels.set(i, "1e" + (int) logValue);
+	/**
+	 * Formats a tick value as a tick label
+	 * 
+	 * @param tick the tick value
+	 * 
+	 * @return the tick label
+	 */
+	protected String formatTickLabel(float tick) {
+		if (log) {
+			if (tick > 0) {
+				float logValue = PApplet.log(tick) / GPlot.LOG10;
+				boolean isExactLogValue = Math.abs(logValue - Math.round(logValue)) < 0.0001;
+
+				if (isExactLogValue) {
+					logValue = Math.round(logValue);
+
+					if (expTickLabels) {
+						return "1e" + (int) logValue;
+					} else {
+						if (logValue > -3.1 && logValue < 3.1) {
+							return (logValue >= 0) ? PApplet.str((int) tick) : PApplet.str(tick);
 						} else {
-							if (logValue > -3.1 && logValue < 3.1) {
-								tickLabels.set(i, (logValue >= 0) ? PApplet.str((int) tick) : PApplet.str(tick));
-							} else {
-								tickLabels.set(i, "1e" + (int) logValue);
-							}
+							return "1e" + (int) logValue;
 						}
-					} else {
-						tickLabels.set(i, "");
 					}
 				} else {
-					tickLabels.set(i, "");
+					return "";
 				}
+			} else {
+				return "";
 			}
 		} else {
+			return (tick % 1 == 0 && Math.abs(tick) < 1e9) ? PApplet.str((int) tick) : PApplet.str(tick);
+		}
+	}
+
+	/**
+	 * Updates the widths of the tick labels. The current font should be already set in the parent applet. The widths
+	 * are taken from the width cache if the labels were measured before with the same font and font size
+	 */
+	protected void updateTickLabelWidths() {
+		// Clear the cache if the font changed or it has grown too much
+		if (!fontName.equals(tickLabelWidthFontName) || fontSize != tickLabelWidthFontSize
+				|| tickLabelWidthCache.size() > TICK_LABEL_CACHE_SIZE) {
+			tickLabelWidthCache.clear();
+			tickLabelWidthFontName = fontName;
+			tickLabelWidthFontSize = fontSize;
+			tickLabelWidthsUpdated = false;
+		}
+
+		if (!tickLabelWidthsUpdated) {
+			int n = tickLabels.size();
+
+			if (tickLabelWidths.length < n) {
+				tickLabelWidths = new float[n];
+			}
+
 			for (int i = 0; i < n; i++) {
-				float tick = ticks.get(i);
-				tickLabels.set(i,
-						(tick % 1 == 0 && Math.abs(tick) < 1e9) ? PApplet.str((int) tick) : PApplet.str(tick));
+				String label = tickLabels.get(i);
+				Float width = tickLabelWidthCache.get(label);
+
+				if (width == null) {
+					width = parent.textWidth(label);
+					tickLabelWidthCache.put(label, width);
+				}
+
+				tickLabelWidths[i] = width;
 			}
+
+			tickLabelWidthsUpdated = true;
 		}
 	}
 
@@ -457,21 +631,18 @@ public class GAxis implements PConstants {
 
 						// Obtain the first tick
 						float firstTick = ticks.get(0) + step * PApplet.ceil((lim[0] - ticks.get(0)) / step);
-						firstTick = roundPlus(firstTick, sigDigits);
+						long firstUnits = GTickSet.valueToUnits(firstTick, sigDigits);
+						firstTick = GTickSet.unitsToValue(firstUnits, sigDigits);
 
 						if ((lim[1] - firstTick) * (lim[0] - firstTick) > 0) {
 							firstTick = ticks.get(0) + step * PApplet.floor((lim[0] - ticks.get(0)) / step);
-							firstTick = roundPlus(firstTick, sigDigits);
+							firstUnits = GTickSet.valueToUnits(firstTick, sigDigits);
+							firstTick = GTickSet.unitsToValue(firstUnits, sigDigits);
 						}
 
 						// Calculate the rest of the ticks
 						n = PApplet.floor(Math.abs((lim[1] - firstTick) / step)) + 1;
-						adaptSize(ticks, n);
-						ticks.set(0, firstTick);
-
-						for (int i = 1; i < n; i++) {
-							ticks.set(i, roundPlus(ticks.get(i - 1) + step, sigDigits));
-						}
+						useTickSet(false, sigDigits, firstUnits, GTickSet.valueToUnits(step, sigDigits), n);
 					}
 
 					// Obtain the new tick labels
@@ -513,7 +684,7 @@ public class GAxis implements PConstants {
 	 */
 	protected void drawAsXAxis() {
 		parent.pushStyle();
-		parent.textFont(font);
+		parent.textFont(obtainFont());
 		parent.textSize(fontSize);
 		parent.fill(fontColor);
 		parent.stroke(lineColor);
@@ -535,24 +706,27 @@ public class GAxis implements PConstants {
 
 		// Draw the tick labels
 		if (drawTickLabels) {
+			updateTickLabelWidths();
+
 			if (rotateTickLabels) {
-				parent.textAlign(RIGHT, CENTER);
+				parent.textAlign(LEFT, CENTER);
 
 				for (int i = 0; i < plotTicks.size(); i++) {
 					if (ticksInside.get(i) && !tickLabels.get(i).equals("")) {
 						parent.pushMatrix();
 						parent.translate(plotTicks.get(i), offset + tickLabelOffset);
 						parent.rotate(-HALF_PI);
-						parent.text(tickLabels.get(i), 0, 0);
+						parent.text(tickLabels.get(i), -tickLabelWidths[i], 0);
 						parent.popMatrix();
 					}
 				}
 			} else {
-				parent.textAlign(CENTER, TOP);
+				parent.textAlign(LEFT, TOP);
 
 				for (int i = 0; i < plotTicks.size(); i++) {
 					if (ticksInside.get(i) && !tickLabels.get(i).equals("")) {
-						parent.text(tickLabels.get(i), plotTicks.get(i), offset + tickLabelOffset);
+						parent.text(tickLabels.get(i),
+								plotTicks.get(i) - tickLabelWidths[i] / 2, offset + tickLabelOffset);
 					}
 				}
 			}
@@ -566,7 +740,7 @@ public class GAxis implements PConstants {
 	 */
 	protected void drawAsYAxis() {
 		parent.pushStyle();
-		parent.textFont(font);
+		parent.textFont(obtainFont());
 		parent.textSize(fontSize);
 		parent.fill(fontColor);
 		parent.stroke(lineColor);
@@ -588,24 +762,27 @@ public class GAxis implements PConstants {
 
 		// Draw the tick labels
 		if (drawTickLabels) {
+			updateTickLabelWidths();
+
 			if (rotateTickLabels) {
-				parent.textAlign(CENTER, BOTTOM);
+				parent.textAlign(LEFT, BOTTOM);
 
 				for (int i = 0; i < plotTicks.size(); i++) {
 					if (ticksInside.get(i) && !tickLabels.get(i).equals("")) {
 						parent.pushMatrix();
 						parent.translate(-offset - tickLabelOffset, plotTicks.get(i));
 						parent.rotate(-HALF_PI);
-						parent.text(tickLabels.get(i), 0, 0);
+						parent.text(tickLabels.get(i), -tickLabelWidths[i] / 2, 0);
 						parent.popMatrix();
 					}
 				}
 			} else {
-				parent.textAlign(RIGHT, CENTER);
+				parent.textAlign(LEFT, CENTER);
 
 				for (int i = 0; i < plotTicks.size(); i++) {
 					if (ticksInside.get(i) && !tickLabels.get(i).equals("")) {
-						parent.text(tickLabels.get(i), -offset - tickLabelOffset, plotTicks.get(i));
+						parent.text(tickLabels.get(i),
+								-offset - tickLabelOffset - tickLabelWidths[i], plotTicks.get(i));
 					}
 				}
 			}
@@ -619,7 +796,7 @@ public class GAxis implements PConstants {
 	 */
 	protected void drawAsTopAxis() {
 		parent.pushStyle();
-		parent.textFont(font);
+		parent.textFont(obtainFont());
 		parent.textSize(fontSize);
 		parent.fill(fontColor);
 		parent.stroke(lineColor);
@@ -644,6 +821,8 @@ public class GAxis implements PConstants {
 
 		// Draw the tick labels
 		if (drawTickLabels) {
+			updateTickLabelWidths();
+
 			if (rotateTickLabels) {
 				parent.textAlign(LEFT, CENTER);
 
@@ -657,11 +836,12 @@ public class GAxis implements PConstants {
 					}
 				}
 			} else {
-				parent.textAlign(CENTER, BOTTOM);
+				parent.textAlign(LEFT, BOTTOM);
 
 				for (int i = 0; i < plotTicks.size(); i++) {
 					if (ticksInside.get(i) && !tickLabels.get(i).equals("")) {
-						parent.text(tickLabels.get(i), plotTicks.get(i), -offset - tickLabelOffset);
+						parent.text(tickLabels.get(i),
+								plotTicks.get(i) - tickLabelWidths[i] / 2, -offset - tickLabelOffset);
 					}
 				}
 			}
@@ -676,7 +856,7 @@ public class GAxis implements PConstants {
 	 */
 	protected void drawAsRightAxis() {
 		parent.pushStyle();
-		parent.textFont(font);
+		parent.textFont(obtainFont());
 		parent.textSize(fontSize);
 		parent.fill(fontColor);
 		parent.stroke(lineColor);
@@ -701,15 +881,17 @@ public class GAxis implements PConstants {
 
 		// Draw the tick labels
 		if (drawTickLabels) {
+			updateTickLabelWidths();
+
 			if (rotateTickLabels) {
-				parent.textAlign(CENTER, TOP);
+				parent.textAlign(LEFT, TOP);
 
 				for (int i = 0; i < plotTicks.size(); i++) {
 					if (ticksInside.get(i) && !tickLabels.get(i).equals("")) {
 						parent.pushMatrix();
 						parent.translate(offset + tickLabelOffset, plotTicks.get(i));
 						parent.rotate(-HALF_PI);
-						parent.text(tickLabels.get(i), 0, 0);
+						parent.text(tickLabels.get(i), -tickLabelWidths[i] / 2, 0);
 						parent.popMatrix();
 					}
 				}
@@ -911,6 +1093,7 @@ public class GAxis implements PConstants {
 	 */
 	public void setTicks(float[] newTicks) {
 		fixedTicks = true;
+		tickSet = null;
 		int n = newTicks.length;
 		adaptSize(ticks, n);
 
@@ -931,10 +1114,14 @@ public class GAxis implements PConstants {
 	public void setTickLabels(String[] newTickLabels) {
 		if (newTickLabels.length == tickLabels.size()) {
 			fixedTicks = true;
+			tickSet = null;
 
 			for (int i = 0; i < tickLabels.size(); i++) {
 				tickLabels.set(i, newTickLabels[i]);
 			}
+
+			labelsTickSet = null;
+			tickLabelWidthsUpdated = false;
 		}
 	}
 
@@ -1031,6 +1218,28 @@ public class GAxis implements PConstants {
 		lab.setText(text);
 	}
 
+	/**
+	 * Returns the font used to draw the text. The cached font is only replaced when it was obtained from a different
+	 * thread, because the font objects can't be shared between threads
+	 * 
+	 * @return the font used to draw the text
+	 */
+	protected PFont obtainFont() {
+		if (font == null || fontThread != Thread.currentThread()) {
+			updateFont();
+		}
+
+		return font;
+	}
+
+	/**
+	 * Updates the cached font after a change in the font properties
+	 */
+	protected void updateFont() {
+		font = GFontRegistry.obtain(parent, fontName, fontSize);
+		fontThread = Thread.currentThread();
+	}
+
 	/**
 	 * Sets the font name
 	 * 
@@ -1038,7 +1247,7 @@ public class GAxis implements PConstants {
 	 */
 	public void setFontName(String newFontName) {
 		fontName = newFontName;
-		font = parent.createFont(fontName, fontSize);
+		updateFont();
 	}
 
 	/**
@@ -1058,7 +1267,7 @@ public class GAxis implements PConstants {
 	public void setFontSize(int newFontSize) {
 		if (newFontSize > 0) {
 			fontSize = newFontSize;
-			font = parent.createFont(fontName, fontSize);
+			updateFont();
 		}
 	}
 
@@ -1074,7 +1283,7 @@ public class GAxis implements PConstants {
 			fontName = newFontName;
 			fontColor = newFontColor;
 			fontSize = newFontSize;
-			font = parent.createFont(fontName, fontSize);
+			updateFont();
 		}
 	}
 
@@ -55,6 +55,7 @@ public class GAxisLabel implements PConstants {
 	protected int fontColor;
 	protected int fontSize;
 	protected PFont font;
+	protected Thread fontThread;
 
 	/**
 	 * Constructor
@@ -78,7 +79,8 @@ public class GAxisLabel implements PConstants {
 		fontName = "SansSerif.plain";
 		fontColor = this.parent.color(0);
 		fontSize = 13;
-		font = this.parent.createFont(fontName, fontSize);
+		font = GFontRegistry.obtain(this.parent, fontName, fontSize);
+		fontThread = Thread.currentThread();
 	}
 
 	/**
@@ -106,7 +108,7 @@ public class GAxisLabel implements PConstants {
 	 */
 	protected void drawAsXLabel() {
 		parent.pushStyle();
-		parent.textFont(font);
+		parent.textFont(obtainFont());
 		parent.textSize(fontSize);
 		parent.fill(fontColor);
 		parent.noStroke();
@@ -132,7 +134,7 @@ public class GAxisLabel implements PConstants {
 	 */
 	protected void drawAsYLabel() {
 		parent.pushStyle();
-		parent.textFont(font);
+		parent.textFont(obtainFont());
 		parent.textSize(fontSize);
 		parent.fill(fontColor);
 		parent.noStroke();
@@ -158,7 +160,7 @@ public class GAxisLabel implements PConstants {
 	 */
 	protected void drawAsTopLabel() {
 		parent.pushStyle();
-		parent.textFont(font);
+		parent.textFont(obtainFont());
 		parent.textSize(fontSize);
 		parent.fill(fontColor);
 		parent.noStroke();
@@ -184,7 +186,7 @@ public class GAxisLabel implements PConstants {
 	 */
 	protected void drawAsRightLabel() {
 		parent.pushStyle();
-		parent.textFont(font);
+		parent.textFont(obtainFont());
 		parent.textSize(fontSize);
 		parent.fill(fontColor);
 		parent.noStroke();
@@ -276,6 +278,28 @@ public class GAxisLabel implements PConstants {
 		}
 	}
 
+	/**
+	 * Returns the font used to draw the text. The cached font is only replaced when it was obtained from a different
+	 * thread, because the font objects can't be shared between threads
+	 * 
+	 * @return the font used to draw the text
+	 */
+	protected PFont obtainFont() {
+		if (font == null || fontThread != Thread.currentThread()) {
+			updateFont();
+		}
+
+		return font;
+	}
+
+	/**
+	 * Updates the cached font after a change in the font properties
+	 */
+	protected void updateFont() {
+		font = GFontRegistry.obtain(parent, fontName, fontSize);
+		fontThread = Thread.currentThread();
+	}
+
 	/**
 	 * Sets the font name
 	 * 
@@ -283,7 +307,7 @@ public class GAxisLabel implements PConstants {
 	 */
 	public void setFontName(String newFontName) {
 		fontName = newFontName;
-		font = parent.createFont(fontName, fontSize);
+		updateFont();
 	}
 
 	/**
@@ -303,7 +327,7 @@ public class GAxisLabel implements PConstants {
 	public void setFontSize(int newFontSize) {
 		if (newFontSize > 0) {
 			fontSize = newFontSize;
-			font = parent.createFont(fontName, fontSize);
+			updateFont();
 		}
 	}
 
@@ -319,7 +343,7 @@ public class GAxisLabel implements PConstants {
 			fontName = newFontName;
 			fontColor = newFontColor;
 			fontSize = newFontSize;
-			font = parent.createFont(fontName, fontSize);
+			updateFont();
 		}
 	}
 }
@@ -0,0 +1,253 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+import java.io.File;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import processing.core.PApplet;
+
+/**
+ * Batch renderer class. It renders plots without any window and writes them to image files. The renders run
+ * concurrently in a pool of threads. Each thread reuses an offscreen canvas and a plot that is configured only once,
+ * and the fonts are shared through the font registry, so consecutive jobs only need to load their data. If there is no
+ * display available, the JVM should run with -Djava.awt.headless=true.
+ * 
+ * @author ##author##
+ */
+public class GBatchRenderer {
+	// The image dimensions
+	protected final int width;
+	protected final int height;
+
+	// The canvases and plots that can be reused by the jobs
+	protected final ArrayBlockingQueue<GOffscreen> canvases;
+	protected final IdentityHashMap<GOffscreen, GPlot> canvasPlots;
+
+	// The renderer properties
+	protected final ExecutorService executor;
+	protected final GPlotRenderer renderer;
+
+	// Statistics
+	protected final AtomicLong nRendered;
+	protected final AtomicLong nFailed;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param width the image width in pixels
+	 * @param height the image height in pixels
+	 * @param nThreads the number of concurrent renders
+	 * @param configurator the configurator that sets up each reusable plot. It's only called once per plot
+	 * @param renderer the renderer that draws the plot in each job
+	 */
+	public GBatchRenderer(int width, int height, int nThreads, GPlotConfigurator configurator,
+			GPlotRenderer renderer) {
+		this.width = width;
+		this.height = height;
+		this.renderer = (renderer != null) ? renderer : GPlotRenderer.DEFAULT_RENDERER;
+		nThreads = Math.max(1, nThreads);
+		canvases = new ArrayBlockingQueue<GOffscreen>(nThreads);
+		canvasPlots = new IdentityHashMap<GOffscreen, GPlot>();
+		nRendered = new AtomicLong();
+		nFailed = new AtomicLong();
+
+		for (int i = 0; i < nThreads; i++) {
+			GOffscreen canvas = new GOffscreen(width, height);
+			GPlot plot = new GPlot(canvas.getApplet(), 0, 0, width, height);
+
+			if (configurator != null) {
+				configurator.configure(plot);
+			}
+
+			canvases.add(canvas);
+			canvasPlots.put(canvas, plot);
+		}
+
+		executor = Executors.newFixedThreadPool(nThreads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "graphantastic-batch-renderer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Constructor that draws the plots with their default parameters
+	 * 
+	 * @param width the image width in pixels
+	 * @param height the image height in pixels
+	 * @param nThreads the number of concurrent renders
+	 * @param configurator the configurator that sets up each reusable plot. It's only called once per plot
+	 */
+	public GBatchRenderer(int width, int height, int nThreads, GPlotConfigurator configurator) {
+		this(width, height, nThreads, configurator, null);
+	}
+
+	/**
+	 * Submits a job that replaces the plot main layer points, renders the plot and saves it
+	 * 
+	 * @param points the main layer points
+	 * @param fileName the image file name. The extension indicates the image format
+	 * 
+	 * @return the job future. Its value is true if the image was written to the file
+	 */
+	public Future<Boolean> submit(final GPointsArray points, String fileName) {
+		return submit(new GPlotConfigurator() {
+			public void configure(GPlot plot) {
+				plot.setPoints(points);
+			}
+		}, fileName);
+	}
+
+	/**
+	 * Submits a job that loads some data in the plot, renders it and saves it. The data loader should replace all the
+	 * data that could have been loaded by the previous jobs, because the plots are reused
+	 * 
+	 * @param dataLoader the configurator that loads the job data in the plot
+	 * @param fileName the image file name. The extension indicates the image format
+	 * 
+	 * @return the job future. Its value is true if the image was written to the file
+	 */
+	public Future<Boolean> submit(final GPlotConfigurator dataLoader, String fileName) {
+		final String path = new File(fileName).getAbsolutePath();
+
+		return executor.submit(new Callable<Boolean>() {
+			public Boolean call() throws InterruptedException {
+				GOffscreen canvas = canvases.take();
+
+				try {
+					boolean saved = render(canvas, dataLoader, path);
+					(saved ? nRendered : nFailed).incrementAndGet();
+					return saved;
+				} finally {
+					canvases.put(canvas);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Loads the job data in the canvas plot, renders it and saves the image. The canvases save their images
+	 * synchronously, so the image is completely written when this method returns
+	 * 
+	 * @param canvas the canvas
+	 * @param dataLoader the configurator that loads the job data in the plot
+	 * @param path the image absolute path
+	 * 
+	 * @return true if the image was written to the file
+	 */
+	protected boolean render(GOffscreen canvas, GPlotConfigurator dataLoader, String path) {
+		GPlot plot = canvasPlots.get(canvas);
+
+		try {
+			plot.beginUpdate();
+
+			try {
+				dataLoader.configure(plot);
+			} finally {
+				plot.endUpdate();
+			}
+
+			plot.pre();
+			canvas.draw(plot, renderer);
+
+			if (!canvas.getGraphics().save(path)) {
+				PApplet.println("Couldn't save the plot image in " + path);
+				return false;
+			}
+
+			return true;
+		} catch (RuntimeException e) {
+			PApplet.println("Error rendering the plot image " + path + ": " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Waits until all the submitted jobs are finished and stops the rendering threads
+	 * 
+	 * @param timeoutSeconds the maximum waiting time in seconds
+	 * 
+	 * @return true if all the jobs finished before the timeout
+	 */
+	public boolean shutdown(long timeoutSeconds) {
+		executor.shutdown();
+
+		try {
+			return executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the number of images that were rendered and saved
+	 * 
+	 * @return the number of saved images
+	 */
+	public long getNRendered() {
+		return nRendered.get();
+	}
+
+	/**
+	 * Returns the number of jobs that failed
+	 * 
+	 * @return the number of failed jobs
+	 */
+	public long getNFailed() {
+		return nFailed.get();
+	}
+
+	/**
+	 * Returns the image width
+	 * 
+	 * @return the image width in pixels
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the image height
+	 * 
+	 * @return the image height in pixels
+	 */
+	public int getHeight() {
+		return height;
+	}
+}
@@ -0,0 +1,482 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.Supplier;
+import java.util.stream.DoubleStream;
+import processing.core.PApplet;
+
+/**
+ * Histogram binning class. It counts raw sample values into fixed-width or logarithmic-width bins, and produces the
+ * points that can be used as layer points to draw the histogram. The samples can be provided as primitive arrays,
+ * streams or iterators. Large sample arrays and parallel streams are counted in parallel, each task filling its own
+ * partial counts that are merged at the end.
+ * 
+ * @author ##author##
+ */
+public class GBinner {
+	// The minimum number of values counted by each parallel task
+	public static final int PARALLEL_CHUNK_SIZE = 1 << 16;
+
+	// Bins properties
+	protected int nBins;
+	protected float min;
+	protected float max;
+	protected boolean log;
+	protected double scaledMin;
+	protected double binScale;
+
+	// Counts
+	protected int[] counts;
+	protected int underflow;
+	protected int overflow;
+	protected int invalid;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param nBins the number of bins
+	 * @param min the start of the first bin
+	 * @param max the end of the last bin
+	 * @param log true if the bins should have the same width in logarithmic scale
+	 */
+	public GBinner(int nBins, float min, float max, boolean log) {
+		this.nBins = (nBins > 0) ? nBins : 1;
+		this.min = min;
+		this.max = max;
+		this.log = log;
+
+		// Do some sanity checks
+		if (this.log && (this.min <= 0 || this.max <= 0)) {
+			PApplet.println("The bin limits are negative. This is not allowed in logarithmic scale.");
+			PApplet.println("Will set them to (0.1, 10)");
+			this.min = 0.1f;
+			this.max = 10f;
+		}
+
+		if (this.min == this.max) {
+			PApplet.println("The bin limits are equal. Will set the maximum to minimum + 1");
+			this.max = this.min + 1;
+		} else if (this.min > this.max) {
+			this.min = max;
+			this.max = min;
+		}
+
+		counts = new int[this.nBins];
+		updateScale();
+	}
+
+	/**
+	 * Updates the variables used to calculate the bin of a given value
+	 */
+	protected void updateScale() {
+		if (log) {
+			scaledMin = Math.log(min);
+			binScale = nBins / (Math.log(max) - scaledMin);
+		} else {
+			scaledMin = min;
+			binScale = nBins / ((double) max - min);
+		}
+	}
+
+	/**
+	 * Calculates the bin index of a given value. The maximum value is included in the last bin
+	 * 
+	 * @param value the value
+	 * 
+	 * @return the bin index. It will be negative if the value is below the minimum or it's not a valid number, and
+	 *         equal to the number of bins if it's above the maximum
+	 */
+	public int binIndex(float value) {
+		if (!(value >= min)) {
+			return -1;
+		} else if (value > max) {
+			return nBins;
+		}
+
+		int bin = (int) (((log ? Math.log(value) : value) - scaledMin) * binScale);
+
+		return (bin < nBins) ? bin : nBins - 1;
+	}
+
+	/**
+	 * Sets all the counts to zero
+	 */
+	public void clear() {
+		Arrays.fill(counts, 0);
+		underflow = 0;
+		overflow = 0;
+		invalid = 0;
+	}
+
+	/**
+	 * Adds a value to the bin counts
+	 * 
+	 * @param value the value to add
+	 */
+	public void add(float value) {
+		int bin = binIndex(value);
+
+		if (bin >= 0 && bin < nBins) {
+			counts[bin]++;
+		} else if (bin == nBins) {
+			overflow++;
+		} else if (value < min) {
+			underflow++;
+		} else {
+			invalid++;
+		}
+	}
+
+	/**
+	 * Adds some values to the bin counts
+	 * 
+	 * @param values the values to add
+	 */
+	public void add(float[] values) {
+		add(values, 0, values.length);
+	}
+
+	/**
+	 * Adds a range of values to the bin counts. Large ranges are counted in parallel in the common fork-join pool
+	 * 
+	 * @param values the values array
+	 * @param start the index of the first value to add
+	 * @param end the index after the last value to add
+	 */
+	public void add(final float[] values, int start, int end) {
+		int nValues = end - start;
+		int nChunks = Math.min(Runtime.getRuntime().availableProcessors(), nValues / PARALLEL_CHUNK_SIZE);
+
+		if (nChunks > 1) {
+			// Count each chunk with its own partial counts
+			ArrayList<Callable<int[][]>> tasks = new ArrayList<Callable<int[][]>>(nChunks);
+			int chunkSize = nValues / nChunks;
+
+			for (int t = 0; t < nChunks; t++) {
+				final int chunkStart = start + t * chunkSize;
+				final int chunkEnd = (t == nChunks - 1) ? end : chunkStart + chunkSize;
+
+				tasks.add(new Callable<int[][]>() {
+					public int[][] call() {
+						int[][] partial = new int[][] { new int[nBins], new int[3] };
+						count(values, chunkStart, chunkEnd, partial[0], partial[1]);
+
+						return partial;
+					}
+				});
+			}
+
+			try {
+				ArrayList<int[][]> partials = new ArrayList<int[][]>(nChunks);
+
+				for (Future<int[][]> result : ForkJoinPool.commonPool().invokeAll(tasks)) {
+					partials.add(result.get());
+				}
+
+				// Merge the partial counts only when all the chunks were counted
+				for (int t = 0; t < nChunks; t++) {
+					addPartial(partials.get(t));
+				}
+
+				return;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				PApplet.println("The parallel binning failed: " + e.getCause());
+			}
+		}
+
+		int[] outside = new int[3];
+		count(values, start, end, counts, outside);
+		addOutside(outside);
+	}
+
+	/**
+	 * Adds the values of a stream to the bin counts. Parallel streams are counted in parallel, each thread filling its
+	 * own partial counts
+	 * 
+	 * @param values the stream of values to add
+	 */
+	public void add(DoubleStream values) {
+		int[][] partial = values.collect(new Supplier<int[][]>() {
+			public int[][] get() {
+				return new int[][] { new int[nBins], new int[3] };
+			}
+		}, new ObjDoubleConsumer<int[][]>() {
+			public void accept(int[][] partial, double value) {
+				count((float) value, partial[0], partial[1]);
+			}
+		}, new BiConsumer<int[][], int[][]>() {
+			public void accept(int[][] partial, int[][] otherPartial) {
+				for (int i = 0; i < nBins; i++) {
+					partial[0][i] += otherPartial[0][i];
+				}
+
+				for (int i = 0; i < 3; i++) {
+					partial[1][i] += otherPartial[1][i];
+				}
+			}
+		});
+
+		addPartial(partial);
+	}
+
+	/**
+	 * Adds the values returned by an iterator to the bin counts
+	 * 
+	 * @param values the iterator over the values to add
+	 */
+	public void add(PrimitiveIterator.OfDouble values) {
+		while (values.hasNext()) {
+			add((float) values.nextDouble());
+		}
+	}
+
+	/**
+	 * Counts a range of values into the provided arrays
+	 * 
+	 * @param values the values array
+	 * @param start the index of the first value to count
+	 * @param end the index after the last value to count
+	 * @param binCounts the bin counts to increment
+	 * @param outside the underflow, overflow and invalid counts to increment
+	 */
+	protected void count(float[] values, int start, int end, int[] binCounts, int[] outside) {
+		for (int i = start; i < end; i++) {
+			count(values[i], binCounts, outside);
+		}
+	}
+
+	/**
+	 * Counts a value into the provided arrays
+	 * 
+	 * @param value the value to count
+	 * @param binCounts the bin counts to increment
+	 * @param outside the underflow, overflow and invalid counts to increment
+	 */
+	protected void count(float value, int[] binCounts, int[] outside) {
+		int bin = binIndex(value);
+
+		if (bin >= 0 && bin < nBins) {
+			binCounts[bin]++;
+		} else if (bin == nBins) {
+			outside[1]++;
+		} else if (value < min) {
+			outside[0]++;
+		} else {
+			outside[2]++;
+		}
+	}
+
+	/**
+	 * Adds some partial counts to the bin counts
+	 * 
+	 * @param partial the partial bin counts, followed by the partial underflow, overflow and invalid counts
+	 */
+	protected void addPartial(int[][] partial) {
+		for (int i = 0; i < nBins; i++) {
+			counts[i] += partial[0][i];
+		}
+
+		addOutside(partial[1]);
+	}
+
+	/**
+	 * Adds the counts of values outside the bins
+	 * 
+	 * @param outside the underflow, overflow and invalid counts
+	 */
+	protected void addOutside(int[] outside) {
+		underflow += outside[0];
+		overflow += outside[1];
+		invalid += outside[2];
+	}
+
+	/**
+	 * Returns the start of a given bin
+	 * 
+	 * @param bin the bin index
+	 * 
+	 * @return the start of the bin
+	 */
+	public float getBinStart(int bin) {
+		return indexToValue(bin);
+	}
+
+	/**
+	 * Returns the end of a given bin
+	 * 
+	 * @param bin the bin index
+	 * 
+	 * @return the end of the bin
+	 */
+	public float getBinEnd(int bin) {
+		return (bin == nBins - 1) ? max : getBinStart(bin + 1);
+	}
+
+	/**
+	 * Returns the center of a given bin. It's the geometric center for logarithmic bins
+	 * 
+	 * @param bin the bin index
+	 * 
+	 * @return the center of the bin
+	 */
+	public float getBinCenter(int bin) {
+		return indexToValue(bin + 0.5);
+	}
+
+	/**
+	 * Converts a continuous bin index to a value. Integer indices correspond to the bin starts
+	 * 
+	 * @param index the continuous bin index
+	 * 
+	 * @return the value
+	 */
+	public float indexToValue(double index) {
+		double scaledValue = scaledMin + index / binScale;
+
+		return (float) (log ? Math.exp(scaledValue) : scaledValue);
+	}
+
+	/**
+	 * Converts a value to a continuous bin index. The integer part is the bin index for values inside the bins
+	 * 
+	 * @param value the value
+	 * 
+	 * @return the continuous bin index
+	 */
+	public double valueToIndex(float value) {
+		return ((log ? Math.log(value) : value) - scaledMin) * binScale;
+	}
+
+	/**
+	 * Returns the histogram points. The x coordinates are the bin centers and the y coordinates the bin counts
+	 * 
+	 * @return the histogram points
+	 */
+	public GPointsArray getPoints() {
+		GPointsArray points = new GPointsArray(nBins);
+
+		for (int i = 0; i < nBins; i++) {
+			points.add(getBinCenter(i), counts[i], "");
+		}
+
+		return points;
+	}
+
+	/**
+	 * Returns the number of bins
+	 * 
+	 * @return the number of bins
+	 */
+	public int getNBins() {
+		return nBins;
+	}
+
+	/**
+	 * Returns the start of the first bin
+	 * 
+	 * @return the start of the first bin
+	 */
+	public float getMin() {
+		return min;
+	}
+
+	/**
+	 * Returns the end of the last bin
+	 * 
+	 * @return the end of the last bin
+	 */
+	public float getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns if the bins have the same width in logarithmic scale
+	 * 
+	 * @return true if the bins are logarithmic
+	 */
+	public boolean getLog() {
+		return log;
+	}
+
+	/**
+	 * Returns a copy of the bin counts
+	 * 
+	 * @return a copy of the bin counts
+	 */
+	public int[] getCounts() {
+		return counts.clone();
+	}
+
+	/**
+	 * Returns the bin counts array
+	 * 
+	 * @return the bin counts array
+	 */
+	public int[] getCountsRef() {
+		return counts;
+	}
+
+	/**
+	 * Returns the number of values below the first bin
+	 * 
+	 * @return the number of values below the first bin
+	 */
+	public int getUnderflow() {
+		return underflow;
+	}
+
+	/**
+	 * Returns the number of values above the last bin
+	 * 
+	 * @return the number of values above the last bin
+	 */
+	public int getOverflow() {
+		return overflow;
+	}
+
+	/**
+	 * Returns the number of values that were not valid numbers
+	 * 
+	 * @return the number of values that were not valid numbers
+	 */
+	public int getInvalid() {
+		return invalid;
+	}
+}
@@ -0,0 +1,298 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import processing.core.PApplet;
+import processing.event.MouseEvent;
+
+/**
+ * Dashboard class. It contains several plots, each one drawn in its own offscreen tile. The tiles of the plots that
+ * changed since the last frame are drawn in parallel in worker threads, and then all the tiles are composited in the
+ * sketch from the animation thread. The mouse events are forwarded to the plot under the mouse.
+ * 
+ * @author ##author##
+ */
+public class GDashboard {
+	// The parent Processing applet
+	protected final PApplet parent;
+
+	// The dashboard tiles
+	protected final ArrayList<GPlot> plots;
+	protected final ArrayList<GOffscreen> tiles;
+	protected final ArrayList<float[]> tilePositions;
+	protected boolean[] invalidTiles;
+	protected int nRenderedTiles;
+
+	// Rendering properties
+	protected final Executor executor;
+	protected GPlotRenderer renderer;
+	protected final GRedrawListener redrawListener;
+
+	// Mouse events
+	protected int mouseTile;
+
+	/**
+	 * Constructor that renders the tiles with the shared pool of the frame pipeline
+	 * 
+	 * @param parent the parent Processing applet
+	 */
+	public GDashboard(PApplet parent) {
+		this(parent, GFramePipeline.obtainDefaultExecutor());
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param parent the parent Processing applet
+	 * @param executor the executor that will render the tiles
+	 */
+	public GDashboard(PApplet parent, Executor executor) {
+		this.parent = parent;
+		this.executor = executor;
+		plots = new ArrayList<GPlot>();
+		tiles = new ArrayList<GOffscreen>();
+		tilePositions = new ArrayList<float[]>();
+		invalidTiles = new boolean[0];
+		nRenderedTiles = 0;
+		renderer = GPlotRenderer.DEFAULT_RENDERER;
+		mouseTile = -1;
+
+		// Ask the parent applet for a new frame when a plot changes, so the dashboard can be drawn on demand
+		redrawListener = new GRedrawListener() {
+			public void redrawNeeded(GPlot plot) {
+				GDashboard.this.parent.redraw();
+			}
+		};
+
+		// Update the plots before each frame and forward them the mouse events
+		this.parent.registerMethod("pre", this);
+		this.parent.registerMethod("mouseEvent", this);
+	}
+
+	/**
+	 * Adds a new plot to the dashboard. The plot is drawn in its own tile, which fills the plot outer dimensions
+	 * 
+	 * @param xPos the tile x position on the screen
+	 * @param yPos the tile y position on the screen
+	 * @param tileWidth the tile width in pixels
+	 * @param tileHeight the tile height in pixels
+	 * 
+	 * @return the new plot
+	 */
+	public GPlot addPlot(float xPos, float yPos, int tileWidth, int tileHeight) {
+		GOffscreen tile = new GOffscreen(tileWidth, tileHeight);
+		GPlot plot = new GPlot(tile.getApplet(), 0, 0, tileWidth, tileHeight);
+		plot.setRedrawListener(redrawListener);
+		plots.add(plot);
+		tiles.add(tile);
+		tilePositions.add(new float[] { xPos, yPos });
+
+		int nTiles = tiles.size();
+		invalidTiles = Arrays.copyOf(invalidTiles, nTiles);
+		invalidTiles[nTiles - 1] = true;
+
+		return plot;
+	}
+
+	/**
+	 * Updates the dashboard plots. It's called automatically by the parent applet before each frame is drawn
+	 */
+	public void pre() {
+		for (int i = 0; i < plots.size(); i++) {
+			plots.get(i).pre();
+		}
+	}
+
+	/**
+	 * Forwards a mouse event to the plot under the mouse. Drags are forwarded to the plot where they started. It's
+	 * called automatically by the parent applet
+	 * 
+	 * @param event the mouse event
+	 */
+	public void mouseEvent(MouseEvent event) {
+		int action = event.getAction();
+		int tile = (action == MouseEvent.DRAG && mouseTile >= 0) ? mouseTile : getTileAt(event.getX(), event.getY());
+
+		if (action == MouseEvent.PRESS || action == MouseEvent.DRAG) {
+			mouseTile = tile;
+		} else if (action == MouseEvent.RELEASE) {
+			mouseTile = -1;
+		}
+
+		if (tile >= 0) {
+			float[] position = tilePositions.get(tile);
+			MouseEvent tileEvent = new MouseEvent(event.getNative(), event.getMillis(), action, event.getModifiers(),
+					event.getX() - (int) position[0], event.getY() - (int) position[1], event.getButton(),
+					event.getCount());
+			plots.get(tile).mouseEvent(tileEvent);
+		}
+	}
+
+	/**
+	 * Returns the tile at a given screen position
+	 * 
+	 * @param xScreen x screen position in the parent Processing applet
+	 * @param yScreen y screen position in the parent Processing applet
+	 * 
+	 * @return the tile index. -1 if there is no tile at that position
+	 */
+	public int getTileAt(float xScreen, float yScreen) {
+		for (int i = tiles.size() - 1; i >= 0; i--) {
+			float[] position = tilePositions.get(i);
+			GOffscreen tile = tiles.get(i);
+
+			if (xScreen >= position[0] && xScreen < position[0] + tile.getWidth() && yScreen >= position[1]
+					&& yScreen < position[1] + tile.getHeight()) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Draws the dashboard. The plots that didn't change since the last frame are not drawn again
+	 */
+	public void draw() {
+		// Find the tiles that need to be rendered
+		int nTiles = tiles.size();
+		final int[] changedTiles = new int[nTiles];
+		int nChanged = 0;
+
+		for (int i = 0; i < nTiles; i++) {
+			if (invalidTiles[i] || plots.get(i).isDirty()) {
+				invalidTiles[i] = false;
+				changedTiles[nChanged++] = i;
+			}
+		}
+
+		// Render the changed tiles in parallel and wait until they are finished
+		renderTiles(changedTiles, nChanged);
+		nRenderedTiles = nChanged;
+
+		// Composite the tiles
+		for (int i = 0; i < nTiles; i++) {
+			float[] position = tilePositions.get(i);
+			parent.image(tiles.get(i).getGraphics(), position[0], position[1]);
+		}
+	}
+
+	/**
+	 * Renders some of the dashboard tiles in the worker threads, waiting until all of them are finished
+	 * 
+	 * @param tileIndices the indices of the tiles to render
+	 * @param nTilesToRender the number of tiles to render
+	 */
+	protected void renderTiles(int[] tileIndices, int nTilesToRender) {
+		final CountDownLatch pending = new CountDownLatch(nTilesToRender);
+		final GPlotRenderer tileRenderer = renderer;
+
+		for (int i = 0; i < nTilesToRender; i++) {
+			final GPlot plot = plots.get(tileIndices[i]);
+			final GOffscreen tile = tiles.get(tileIndices[i]);
+
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						tile.draw(plot, tileRenderer);
+					} catch (RuntimeException e) {
+						PApplet.println("Error drawing a dashboard tile: " + e.getMessage());
+					} finally {
+						pending.countDown();
+					}
+				}
+			});
+		}
+
+		try {
+			pending.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Forces the tile of a plot to be drawn again in the next frame. It should be used after changing the plot layers,
+	 * axes or title directly
+	 * 
+	 * @param index the plot index
+	 */
+	public void invalidate(int index) {
+		invalidTiles[index] = true;
+	}
+
+	/**
+	 * Forces all the tiles to be drawn again in the next frame
+	 */
+	public void invalidateAll() {
+		Arrays.fill(invalidTiles, true);
+	}
+
+	/**
+	 * Sets the renderer used to draw the dashboard plots
+	 * 
+	 * @param newRenderer the new plot renderer
+	 */
+	public void setRenderer(GPlotRenderer newRenderer) {
+		renderer = newRenderer;
+		invalidateAll();
+	}
+
+	/**
+	 * Returns one of the dashboard plots
+	 * 
+	 * @param index the plot index
+	 * 
+	 * @return the plot
+	 */
+	public GPlot getPlot(int index) {
+		return plots.get(index);
+	}
+
+	/**
+	 * Returns the number of plots in the dashboard
+	 * 
+	 * @return the number of plots
+	 */
+	public int getNPlots() {
+		return plots.size();
+	}
+
+	/**
+	 * Returns the number of tiles that were rendered in the last frame
+	 * 
+	 * @return the number of rendered tiles
+	 */
+	public int getNRenderedTiles() {
+		return nRenderedTiles;
+	}
+}
@@ -0,0 +1,109 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+import java.util.HashMap;
+import java.util.WeakHashMap;
+import processing.core.PApplet;
+import processing.core.PFont;
+
+/**
+ * Font registry class. It keeps a process-wide cache of the fonts used by the plots, so fonts with the same name, size
+ * and pixel density are only created once. PFont objects are not thread safe, because setting the text size changes
+ * their native font, so each thread gets its own fonts. The fonts of the threads that finished are released with
+ * them.
+ * 
+ * @author ##author##
+ */
+public class GFontRegistry {
+	// The cached fonts, indexed by thread, pixel density, font name and size
+	protected static final WeakHashMap<Thread, HashMap<Integer, HashMap<String, HashMap<Integer, PFont>>>> fonts =
+			new WeakHashMap<Thread, HashMap<Integer, HashMap<String, HashMap<Integer, PFont>>>>();
+	protected static int nFonts = 0;
+
+	/**
+	 * Returns the font with the given name and size for the pixel density of the applet. The font is created the first
+	 * time it's requested from the current thread
+	 * 
+	 * @param parent the Processing applet used to create the font
+	 * @param fontName the font name
+	 * @param fontSize the font size
+	 * 
+	 * @return the font with the given name and size
+	 */
+	public static synchronized PFont obtain(PApplet parent, String fontName, int fontSize) {
+		Thread thread = Thread.currentThread();
+		HashMap<Integer, HashMap<String, HashMap<Integer, PFont>>> densities = fonts.get(thread);
+
+		if (densities == null) {
+			densities = new HashMap<Integer, HashMap<String, HashMap<Integer, PFont>>>();
+			fonts.put(thread, densities);
+		}
+
+		HashMap<String, HashMap<Integer, PFont>> names = densities.get(parent.pixelDensity);
+
+		if (names == null) {
+			names = new HashMap<String, HashMap<Integer, PFont>>();
+			densities.put(parent.pixelDensity, names);
+		}
+
+		HashMap<Integer, PFont> sizes = names.get(fontName);
+
+		if (sizes == null) {
+			sizes = new HashMap<Integer, PFont>();
+			names.put(fontName, sizes);
+		}
+
+		PFont font = sizes.get(fontSize);
+
+		if (font == null) {
+			font = parent.createFont(fontName, fontSize);
+			sizes.put(fontSize, font);
+			nFonts++;
+		}
+
+		return font;
+	}
+
+	/**
+	 * Returns the number of fonts created by the registry since it was last cleared
+	 * 
+	 * @return the number of fonts created by the registry
+	 */
+	public static synchronized int getNFonts() {
+		return nFonts;
+	}
+
+	/**
+	 * Removes all the fonts from the registry
+	 */
+	public static synchronized void clear() {
+		fonts.clear();
+		nFonts = 0;
+	}
+}
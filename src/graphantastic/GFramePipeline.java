@@ -0,0 +1,120 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Frame pipeline class. It prepares the frames of the plot layers in worker threads, so the animation thread only
+ * needs to issue the draw calls. By default it uses a shared pool of daemon threads, one per available processor.
+ * 
+ * @author ##author##
+ */
+public class GFramePipeline {
+	// The executor that runs the frame preparation jobs
+	protected final Executor executor;
+
+	// The shared default executor
+	protected static ExecutorService defaultExecutor;
+
+	/**
+	 * Constructor that uses the shared default executor
+	 */
+	public GFramePipeline() {
+		this(obtainDefaultExecutor());
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param executor the executor that will run the frame preparation jobs
+	 */
+	public GFramePipeline(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Returns the shared default executor, creating it if necessary
+	 * 
+	 * @return the shared default executor
+	 */
+	protected static synchronized ExecutorService obtainDefaultExecutor() {
+		if (defaultExecutor == null) {
+			defaultExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+					new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "graphantastic-frame-pipeline");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+		}
+
+		return defaultExecutor;
+	}
+
+	/**
+	 * Starts the preparation of a new frame for a layer if its points or limits changed
+	 * 
+	 * @param layer the layer
+	 * 
+	 * @return true if a new frame preparation was started
+	 */
+	public boolean prepare(GLayer layer) {
+		return layer.prepareFrame(executor);
+	}
+
+	/**
+	 * Starts the preparation of new frames for all the plot layers whose points or limits changed
+	 * 
+	 * @param plot the plot
+	 * 
+	 * @return true if some frame preparation was started
+	 */
+	public boolean prepare(GPlot plot) {
+		boolean started = prepare(plot.mainLayer);
+
+		for (int i = 0; i < plot.layerList.size(); i++) {
+			started |= prepare(plot.layerList.get(i));
+		}
+
+		return started;
+	}
+
+	/**
+	 * Returns the executor that runs the frame preparation jobs
+	 * 
+	 * @return the executor
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+}
@@ -27,7 +27,7 @@
 
 package graphantastic;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import processing.core.PApplet;
 import processing.core.PConstants;
 import processing.core.PFont;
@@ -50,9 +50,24 @@ public class GHistogram implements PConstants {
 	protected int[] bgColors;
 	protected int[] lineColors;
 	protected float[] lineWidths;
-	protected ArrayList<Float> differences;
-	protected ArrayList<Float> leftSides;
-	protected ArrayList<Float> rightSides;
+	protected float[] differences;
+	protected float[] leftSides;
+	protected float[] rightSides;
+
+	// Batched drawing properties. The bars are grouped by style and the geometry is cached until the points, the
+	// dimensions, the baseline or the styles change. Histograms with a single style are always drawn in batches,
+	// because grouping the bars doesn't change their drawing order
+	protected boolean batchedDrawing;
+	protected boolean batchUpdated;
+	protected int batchPointsModCount;
+	protected float batchBaseline;
+	protected float[] barCorners;
+	protected int[] barOrder;
+	protected long[] barKeys;
+	protected boolean[] narrowBars;
+	protected int nBatchedBars;
+	protected int[] groupStarts;
+	protected int nGroups;
 
 	// Labels properties
 	protected float labelsOffset;
@@ -62,6 +77,7 @@ public class GHistogram implements PConstants {
 	protected int fontColor;
 	protected int fontSize;
 	protected PFont font;
+	protected Thread fontThread;
 
 	/**
 	 * Constructor
@@ -84,33 +100,45 @@ public class GHistogram implements PConstants {
 		lineWidths = new float[] { 1 };
 
 		int nPoints = plotPoints.getNPoints();
-		differences = new ArrayList<Float>(nPoints);
-		leftSides = new ArrayList<Float>(nPoints);
-		rightSides = new ArrayList<Float>(nPoints);
+		differences = new float[0];
+		leftSides = new float[0];
+		rightSides = new float[0];
 		initializeArrays(nPoints);
 		updateArrays();
 
+		batchedDrawing = false;
+		batchUpdated = false;
+		batchPointsModCount = -1;
+		batchBaseline = 0;
+		barCorners = new float[0];
+		barOrder = new int[0];
+		barKeys = new long[0];
+		narrowBars = new boolean[0];
+		nBatchedBars = 0;
+		groupStarts = new int[1];
+		nGroups = 0;
+
 		labelsOffset = 8;
 		drawLabels = false;
 		rotateLabels = false;
 		fontName = "SansSerif.plain";
 		fontColor = this.parent.color(0);
 		fontSize = 11;
-		font = this.parent.createFont(fontName, fontSize);
+		font = GFontRegistry.obtain(this.parent, fontName, fontSize);
+		fontThread = Thread.currentThread();
 	}
 
 	/**
-	 * Fills the differences, leftSides and rightSides arrays
+	 * Makes sure that the differences, leftSides and rightSides arrays can hold a given number of points
+	 * 
+	 * @param nPoints the number of points
 	 */
 	protected void initializeArrays(int nPoints) {
-		if (differences.size() < nPoints) {
-			for (int i = differences.size(); i < nPoints; i++) {
-				differences.add(0f);
-				leftSides.add(0f);
-				rightSides.add(0f);
-			}
-		} else {
-			differences.subList(nPoints, differences.size()).clear();
+		if (leftSides.length < nPoints) {
+			int capacity = Math.max(nPoints, 2 * leftSides.length);
+			differences = Arrays.copyOf(differences, capacity);
+			leftSides = Arrays.copyOf(leftSides, capacity);
+			rightSides = Arrays.copyOf(rightSides, capacity);
 		}
 	}
 
@@ -118,14 +146,28 @@ public class GHistogram implements PConstants {
 	 * Updates the differences, leftSides and rightSides arrays
 	 */
 	protected void updateArrays() {
+		updateArrays(0, plotPoints.getNPoints() - 1);
+	}
+
+	/**
+	 * Updates the differences, leftSides and rightSides arrays for the points between two indices and their direct
+	 * neighbors
+	 * 
+	 * @param from the index of the first modified point
+	 * @param to the index of the last modified point
+	 */
+	protected void updateArrays(int from, int to) {
 		int nPoints = plotPoints.getNPoints();
+		batchUpdated = false;
 
 		if (nPoints == 1) {
-			leftSides.set(0, (type == GPlot.VERTICAL) ? 0.2f * dim[0] : 0.2f * dim[1]);
-			rightSides.set(0, leftSides.get(0));
+			leftSides[0] = (type == GPlot.VERTICAL) ? 0.2f * dim[0] : 0.2f * dim[1];
+			rightSides[0] = leftSides[0];
 		} else if (nPoints > 1) {
 			// Calculate the differences between consecutive points
-			for (int i = 0; i < nPoints - 1; i++) {
+			int lastDiff = Math.min(to, nPoints - 2);
+
+			for (int i = Math.max(from - 1, 0); i <= lastDiff; i++) {
 				if (plotPoints.isValid(i) && plotPoints.isValid(i + 1)) {
 					float separation = separations[i % separations.length];
 					float diff;
@@ -137,27 +179,64 @@ public class GHistogram implements PConstants {
 					}
 
 					if (diff > 0) {
-						differences.set(i, (diff - separation) / 2f);
+						differences[i] = (diff - separation) / 2f;
 					} else {
-						differences.set(i, (diff + separation) / 2f);
+						differences[i] = (diff + separation) / 2f;
 					}
 				} else {
-					differences.set(i, 0f);
+					differences[i] = 0;
 				}
 			}
 
 			// Fill the leftSides and rightSides arrays
-			leftSides.set(0, differences.get(0));
-			rightSides.set(0, differences.get(0));
+			int lastSide = Math.min(to + 1, nPoints - 1);
+
+			for (int i = Math.max(from - 1, 0); i <= lastSide; i++) {
+				if (i == 0) {
+					leftSides[0] = differences[0];
+					rightSides[0] = differences[0];
+				} else if (i == nPoints - 1) {
+					leftSides[i] = differences[i - 1];
+					rightSides[i] = differences[i - 1];
+				} else {
+					leftSides[i] = differences[i - 1];
+					rightSides[i] = differences[i];
+				}
+			}
+		}
+	}
 
-			for (int i = 1; i < nPoints - 1; i++) {
-				leftSides.set(i, differences.get(i - 1));
-				rightSides.set(i, differences.get(i));
+	/**
+	 * Shifts the differences, leftSides and rightSides arrays after a point has been inserted or removed, and updates
+	 * the elements affected by the change. The plot points should already contain the change
+	 * 
+	 * @param index the position of the inserted or removed point
+	 * @param inserted true if the point was inserted, false if it was removed
+	 */
+	protected void shiftArrays(int index, boolean inserted) {
+		int nPoints = plotPoints.getNPoints();
+		initializeArrays(nPoints);
+
+		if (inserted) {
+			int nMoved = nPoints - 1 - index;
+
+			if (nMoved > 0) {
+				System.arraycopy(differences, index, differences, index + 1, nMoved - 1);
+				System.arraycopy(leftSides, index, leftSides, index + 1, nMoved);
+				System.arraycopy(rightSides, index, rightSides, index + 1, nMoved);
 			}
+		} else {
+			int nMoved = nPoints - index;
 
-			leftSides.set(nPoints - 1, differences.get(nPoints - 2));
-			rightSides.set(nPoints - 1, differences.get(nPoints - 2));
+			if (nMoved > 0) {
+				System.arraycopy(differences, index + 1, differences, index, nMoved - 1);
+				System.arraycopy(leftSides, index + 1, leftSides, index, nMoved);
+				System.arraycopy(rightSides, index + 1, rightSides, index, nMoved);
+			}
 		}
+
+		// The separations of the moved points change if there is more than one separation
+		updateArrays(index, (separations.length == 1) ? index : nPoints - 1);
 	}
 
 	/**
@@ -179,71 +258,284 @@ public class GHistogram implements PConstants {
 			parent.rectMode(CORNERS);
 			parent.strokeCap(SQUARE);
 
-			for (int i = 0; i < plotPoints.getNPoints(); i++) {
-				if (plotPoints.isValid(i)) {
-					// Obtain the corners
-					float x1, x2, y1, y2;
+			if (batchedDrawing || hasSingleStyle()) {
+				drawBatchedBars(baseline);
+			} else {
+				float[] corners = new float[4];
 
-					if (type == GPlot.VERTICAL) {
-						x1 = plotPoints.getX(i) - leftSides.get(i);
-						x2 = plotPoints.getX(i) + rightSides.get(i);
-						y1 = plotPoints.getY(i);
-						y2 = baseline;
-					} else {
-						x1 = baseline;
-						x2 = plotPoints.getX(i);
-						y1 = plotPoints.getY(i) - leftSides.get(i);
-						y2 = plotPoints.getY(i) + rightSides.get(i);
+				for (int i = 0; i < plotPoints.getNPoints(); i++) {
+					if (plotPoints.isValid(i)) {
+						// Obtain the corners
+						obtainBarCorners(i, baseline, corners);
+						float x1 = corners[0];
+						float y1 = corners[1];
+						float x2 = corners[2];
+						float y2 = corners[3];
+
+						// Draw the rectangle
+						float lw = lineWidths[i % lineWidths.length];
+						parent.fill(bgColors[i % bgColors.length]);
+						parent.stroke(lineColors[i % lineColors.length]);
+						parent.strokeWeight(lw);
+
+						if (isWideBar(x1, y1, x2, y2, lw)) {
+							parent.rect(x1, y1, x2, y2);
+						} else if (isNarrowBar(x1, y1, x2, y2)) {
+							parent.rect(x1, y1, x2, y2);
+							parent.line(x1, y1, x1, y2);
+							parent.line(x2, y1, x2, y2);
+							parent.line(x1, y1, x2, y1);
+							parent.line(x1, y2, x2, y2);
+						}
 					}
+				}
+			}
 
-					if (x1 < 0) {
-						x1 = 0;
-					} else if (x1 > dim[0]) {
-						x1 = dim[0];
-					}
+			parent.popStyle();
 
-					if (-y1 < 0) {
-						y1 = 0;
-					} else if (-y1 > dim[1]) {
-						y1 = -dim[1];
-					}
+			// Draw the labels
+			if (drawLabels) {
+				drawHistLabels();
+			}
+		}
+	}
 
-					if (x2 < 0) {
-						x2 = 0;
-					} else if (x2 > dim[0]) {
-						x2 = dim[0];
-					}
+	/**
+	 * Calculates the corners of a histogram bar, limited to the plot box
+	 * 
+	 * @param i the bar index
+	 * @param baseline the histogram baseline in the plot reference system
+	 * @param corners the array where the x1, y1, x2 and y2 corner coordinates will be stored
+	 */
+	protected void obtainBarCorners(int i, float baseline, float[] corners) {
+		float x1, x2, y1, y2;
 
-					if (-y2 < 0) {
-						y2 = 0;
-					} else if (-y2 > dim[1]) {
-						y2 = -dim[1];
-					}
+		if (type == GPlot.VERTICAL) {
+			x1 = plotPoints.getX(i) - leftSides[i];
+			x2 = plotPoints.getX(i) + rightSides[i];
+			y1 = plotPoints.getY(i);
+			y2 = baseline;
+		} else {
+			x1 = baseline;
+			x2 = plotPoints.getX(i);
+			y1 = plotPoints.getY(i) - leftSides[i];
+			y2 = plotPoints.getY(i) + rightSides[i];
+		}
 
-					// Draw the rectangle
-					float lw = lineWidths[i % lineWidths.length];
-					parent.fill(bgColors[i % bgColors.length]);
-					parent.stroke(lineColors[i % lineColors.length]);
-					parent.strokeWeight(lw);
-
-					if (Math.abs(x2 - x1) > 2 * lw && Math.abs(y2 - y1) > 2 * lw) {
-						parent.rect(x1, y1, x2, y2);
-					} else if ((type == GPlot.VERTICAL && x2 != x1 && !(y1 == y2 && (y1 == 0 || y1 == -dim[1])))
-							|| (type == GPlot.HORIZONTAL && y2 != y1 && !(x1 == x2 && (x1 == 0 || x1 == dim[0])))) {
-						parent.rect(x1, y1, x2, y2);
-						parent.line(x1, y1, x1, y2);
-						parent.line(x2, y1, x2, y2);
-						parent.line(x1, y1, x2, y1);
-						parent.line(x1, y2, x2, y2);
-					}
+		if (x1 < 0) {
+			x1 = 0;
+		} else if (x1 > dim[0]) {
+			x1 = dim[0];
+		}
+
+		if (-y1 < 0) {
+			y1 = 0;
+		} else if (-y1 > dim[1]) {
+			y1 = -dim[1];
+		}
+
+		if (x2 < 0) {
+			x2 = 0;
+		} else if (x2 > dim[0]) {
+			x2 = dim[0];
+		}
+
+		if (-y2 < 0) {
+			y2 = 0;
+		} else if (-y2 > dim[1]) {
+			y2 = -dim[1];
+		}
+
+		corners[0] = x1;
+		corners[1] = y1;
+		corners[2] = x2;
+		corners[3] = y2;
+	}
+
+	/**
+	 * Checks if a bar is wide enough to be drawn as a simple rectangle
+	 * 
+	 * @param x1 the bar x1 corner coordinate
+	 * @param y1 the bar y1 corner coordinate
+	 * @param x2 the bar x2 corner coordinate
+	 * @param y2 the bar y2 corner coordinate
+	 * @param lw the bar line width
+	 * 
+	 * @return true if the bar is wider and taller than two line widths
+	 */
+	protected boolean isWideBar(float x1, float y1, float x2, float y2, float lw) {
+		return Math.abs(x2 - x1) > 2 * lw && Math.abs(y2 - y1) > 2 * lw;
+	}
+
+	/**
+	 * Checks if a bar that is not wide should be drawn as a rectangle with its borders as extra lines
+	 * 
+	 * @param x1 the bar x1 corner coordinate
+	 * @param y1 the bar y1 corner coordinate
+	 * @param x2 the bar x2 corner coordinate
+	 * @param y2 the bar y2 corner coordinate
+	 * 
+	 * @return true if the bar should be drawn
+	 */
+	protected boolean isNarrowBar(float x1, float y1, float x2, float y2) {
+		return (type == GPlot.VERTICAL && x2 != x1 && !(y1 == y2 && (y1 == 0 || y1 == -dim[1])))
+				|| (type == GPlot.HORIZONTAL && y2 != y1 && !(x1 == x2 && (x1 == 0 || x1 == dim[0])));
+	}
+
+	/**
+	 * Updates the batched drawing cache: the bar corners, which bars need extra border lines, and the bar indices
+	 * grouped by style
+	 * 
+	 * @param baseline the histogram baseline in the plot reference system
+	 */
+	protected void updateBatch(float baseline) {
+		int nPoints = plotPoints.getNPoints();
+
+		if (barOrder.length < nPoints) {
+			barCorners = new float[4 * nPoints];
+			barOrder = new int[nPoints];
+			narrowBars = new boolean[nPoints];
+			barKeys = new long[nPoints];
+		}
+
+		// The style of a bar only depends on its index modulo the period of the style arrays. Pack that style index
+		// and the bar index in a sort key, so sorting the keys groups the bars by style
+		int stylePeriod = obtainStylePeriod(nPoints);
+		float[] corners = new float[4];
+		nBatchedBars = 0;
+
+		for (int i = 0; i < nPoints; i++) {
+			if (plotPoints.isValid(i)) {
+				obtainBarCorners(i, baseline, corners);
+				float lw = lineWidths[i % lineWidths.length];
+				boolean wide = isWideBar(corners[0], corners[1], corners[2], corners[3], lw);
+
+				if (wide || isNarrowBar(corners[0], corners[1], corners[2], corners[3])) {
+					System.arraycopy(corners, 0, barCorners, 4 * i, 4);
+					narrowBars[i] = !wide;
+					barKeys[nBatchedBars] = ((long) (i % stylePeriod) << 32) | i;
+					nBatchedBars++;
 				}
 			}
+		}
 
-			parent.popStyle();
+		Arrays.sort(barKeys, 0, nBatchedBars);
 
-			// Draw the labels
-			if (drawLabels) {
-				drawHistLabels();
+		// Find where each style group starts
+		if (groupStarts.length < nBatchedBars + 1) {
+			groupStarts = new int[nBatchedBars + 1];
+		}
+
+		nGroups = 0;
+
+		for (int k = 0; k < nBatchedBars; k++) {
+			if (k == 0 || (barKeys[k] >>> 32) != (barKeys[k - 1] >>> 32)) {
+				groupStarts[nGroups] = k;
+				nGroups++;
+			}
+
+			barOrder[k] = (int) barKeys[k];
+		}
+
+		groupStarts[nGroups] = nBatchedBars;
+		batchUpdated = true;
+		batchPointsModCount = plotPoints.getModCount();
+		batchBaseline = baseline;
+	}
+
+	/**
+	 * Checks if all the histogram bars share the same style
+	 * 
+	 * @return true if all the bars share the same style
+	 */
+	protected boolean hasSingleStyle() {
+		return bgColors.length == 1 && lineColors.length == 1 && lineWidths.length == 1;
+	}
+
+	/**
+	 * Calculates the number of bars after which the bar styles repeat. It's the least common multiple of the style
+	 * array lengths, limited to the number of bars
+	 * 
+	 * @param nBars the number of bars
+	 * 
+	 * @return the style period
+	 */
+	protected int obtainStylePeriod(int nBars) {
+		long period = 1;
+		int[] lengths = new int[] { bgColors.length, lineColors.length, lineWidths.length };
+
+		for (int i = 0; i < lengths.length && period < nBars; i++) {
+			long a = period;
+			long b = lengths[i];
+
+			while (b != 0) {
+				long tmp = a % b;
+				a = b;
+				b = tmp;
+			}
+
+			period = period / a * lengths[i];
+		}
+
+		return (int) Math.max(1, Math.min(period, nBars));
+	}
+
+	/**
+	 * Draws the histogram bars grouped by style. Each group is drawn as a single shape, plus another shape with the
+	 * border lines of the narrow bars
+	 * 
+	 * @param baseline the histogram baseline in the plot reference system
+	 */
+	protected void drawBatchedBars(float baseline) {
+		if (!batchUpdated || batchPointsModCount != plotPoints.getModCount() || batchBaseline != baseline) {
+			updateBatch(baseline);
+		}
+
+		for (int g = 0; g < nGroups; g++) {
+			int first = groupStarts[g];
+			int last = groupStarts[g + 1];
+			boolean hasNarrowBars = false;
+
+			// All the bars in the group share the same style
+			int firstBar = barOrder[first];
+			parent.fill(bgColors[firstBar % bgColors.length]);
+			parent.stroke(lineColors[firstBar % lineColors.length]);
+			parent.strokeWeight(lineWidths[firstBar % lineWidths.length]);
+			parent.beginShape(QUADS);
+
+			for (int k = first; k < last; k++) {
+				int c = 4 * barOrder[k];
+				parent.vertex(barCorners[c], barCorners[c + 1]);
+				parent.vertex(barCorners[c + 2], barCorners[c + 1]);
+				parent.vertex(barCorners[c + 2], barCorners[c + 3]);
+				parent.vertex(barCorners[c], barCorners[c + 3]);
+				hasNarrowBars |= narrowBars[barOrder[k]];
+			}
+
+			parent.endShape();
+
+			if (hasNarrowBars) {
+				parent.beginShape(LINES);
+
+				for (int k = first; k < last; k++) {
+					if (narrowBars[barOrder[k]]) {
+						int c = 4 * barOrder[k];
+						float x1 = barCorners[c];
+						float y1 = barCorners[c + 1];
+						float x2 = barCorners[c + 2];
+						float y2 = barCorners[c + 3];
+						parent.vertex(x1, y1);
+						parent.vertex(x1, y2);
+						parent.vertex(x2, y1);
+						parent.vertex(x2, y2);
+						parent.vertex(x1, y1);
+						parent.vertex(x2, y1);
+						parent.vertex(x1, y2);
+						parent.vertex(x2, y2);
+					}
+				}
+
+				parent.endShape();
 			}
 		}
 	}
@@ -253,7 +545,7 @@ public class GHistogram implements PConstants {
 	 */
 	protected void drawHistLabels() {
 		parent.pushStyle();
-		parent.textFont(font);
+		parent.textFont(obtainFont());
 		parent.textSize(fontSize);
 		parent.fill(fontColor);
 		parent.noStroke();
@@ -361,7 +653,7 @@ public class GHistogram implements PConstants {
 	 */
 	public void setPlotPoint(int index, GPoint newPlotPoint) {
 		plotPoints.set(index, newPlotPoint);
-		updateArrays();
+		updateArrays(index, index);
 	}
 
 	/**
@@ -371,8 +663,9 @@ public class GHistogram implements PConstants {
 	 */
 	public void addPlotPoint(GPoint newPlotPoint) {
 		plotPoints.add(newPlotPoint);
-		initializeArrays(plotPoints.getNPoints());
-		updateArrays();
+		int nPoints = plotPoints.getNPoints();
+		initializeArrays(nPoints);
+		updateArrays(nPoints - 1, nPoints - 1);
 	}
 
 	/**
@@ -383,8 +676,7 @@ public class GHistogram implements PConstants {
 	 */
 	public void addPlotPoint(int index, GPoint newPlotPoint) {
 		plotPoints.add(index, newPlotPoint);
-		initializeArrays(plotPoints.getNPoints());
-		updateArrays();
+		shiftArrays(index, true);
 	}
 
 	/**
@@ -393,9 +685,11 @@ public class GHistogram implements PConstants {
 	 * @param newPlotPoints the new points positions in the plot reference system
 	 */
 	public void addPlotPoints(GPointsArray newPlotPoints) {
+		int oldNPoints = plotPoints.getNPoints();
 		plotPoints.add(newPlotPoints);
-		initializeArrays(plotPoints.getNPoints());
-		updateArrays();
+		int nPoints = plotPoints.getNPoints();
+		initializeArrays(nPoints);
+		updateArrays(oldNPoints, nPoints - 1);
 	}
 
 	/**
@@ -405,8 +699,7 @@ public class GHistogram implements PConstants {
 	 */
 	public void removePlotPoint(int index) {
 		plotPoints.remove(index);
-		initializeArrays(plotPoints.getNPoints());
-		updateArrays();
+		shiftArrays(index, false);
 	}
 
 	/**
@@ -426,6 +719,7 @@ public class GHistogram implements PConstants {
 	 */
 	public void setBgColors(int[] newBgColors) {
 		bgColors = newBgColors.clone();
+		batchUpdated = false;
 	}
 
 	/**
@@ -435,6 +729,7 @@ public class GHistogram implements PConstants {
 	 */
 	public void setLineColors(int[] newLineColors) {
 		lineColors = newLineColors.clone();
+		batchUpdated = false;
 	}
 
 	/**
@@ -444,6 +739,18 @@ public class GHistogram implements PConstants {
 	 */
 	public void setLineWidths(float[] newLineWidths) {
 		lineWidths = newLineWidths.clone();
+		batchUpdated = false;
+	}
+
+	/**
+	 * Sets if the histogram bars should be drawn in batches grouped by style when they have different styles. The
+	 * bars are then drawn in a different order, which changes how the overlapping bars and their borders look.
+	 * Histograms with a single style are always drawn in batches
+	 * 
+	 * @param newBatchedDrawing true if the histogram bars with different styles should be drawn in batches
+	 */
+	public void setBatchedDrawing(boolean newBatchedDrawing) {
+		batchedDrawing = newBatchedDrawing;
 	}
 
 	/**
@@ -482,6 +789,28 @@ public class GHistogram implements PConstants {
 		rotateLabels = newRotateLabels;
 	}
 
+	/**
+	 * Returns the font used to draw the text. The cached font is only replaced when it was obtained from a different
+	 * thread, because the font objects can't be shared between threads
+	 * 
+	 * @return the font used to draw the text
+	 */
+	protected PFont obtainFont() {
+		if (font == null || fontThread != Thread.currentThread()) {
+			updateFont();
+		}
+
+		return font;
+	}
+
+	/**
+	 * Updates the cached font after a change in the font properties
+	 */
+	protected void updateFont() {
+		font = GFontRegistry.obtain(parent, fontName, fontSize);
+		fontThread = Thread.currentThread();
+	}
+
 	/**
 	 * Sets the font name
 	 * 
@@ -489,7 +818,7 @@ public class GHistogram implements PConstants {
 	 */
 	public void setFontName(String newFontName) {
 		fontName = newFontName;
-		font = parent.createFont(fontName, fontSize);
+		updateFont();
 	}
 
 	/**
@@ -509,7 +838,7 @@ public class GHistogram implements PConstants {
 	public void setFontSize(int newFontSize) {
 		if (newFontSize > 0) {
 			fontSize = newFontSize;
-			font = parent.createFont(fontName, fontSize);
+			updateFont();
 		}
 	}
 
@@ -525,7 +854,7 @@ public class GHistogram implements PConstants {
 			fontName = newFontName;
 			fontColor = newFontColor;
 			fontSize = newFontSize;
-			font = parent.createFont(fontName, fontSize);
+			updateFont();
 		}
 	}
 }
@@ -0,0 +1,294 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+import processing.core.PApplet;
+
+/**
+ * Histogram pyramid class. It keeps the sample counts of a large number of fine bins, together with coarser levels
+ * where each bin is the sum of two bins of the previous level. When the visible range changes, the level that gives a
+ * number of visible bars close to a target is selected, and only the visible bins of that level are converted to
+ * histogram points. This allows zooming into very large distributions without binning the raw samples again.
+ * 
+ * @author ##author##
+ */
+public class GHistogramPyramid {
+	// Finest level bins
+	protected final GBinner binner;
+
+	// Count levels. The first level contains the finest bins
+	protected final int nLevels;
+	protected final int[][] levels;
+	protected boolean levelsUpdated;
+
+	// Visible bins calculated by the last points request
+	protected int firstBin;
+	protected int lastBin;
+
+	// Last selection sent to a layer by the update method
+	protected int lastLevel;
+	protected int lastFirstBin;
+	protected int lastLastBin;
+	protected int lastModCount;
+	protected int modCount;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param nLevels the number of levels. The finest level will have 2^(nLevels - 1) bins
+	 * @param min the start of the first bin
+	 * @param max the end of the last bin
+	 * @param log true if the bins should have the same width in logarithmic scale
+	 */
+	public GHistogramPyramid(int nLevels, float min, float max, boolean log) {
+		if (nLevels < 1 || nLevels > 27) {
+			PApplet.println("The number of levels should be between 1 and 27. Will set it to 17");
+			nLevels = 17;
+		}
+
+		this.nLevels = nLevels;
+		binner = new GBinner(1 << (nLevels - 1), min, max, log);
+		levels = new int[nLevels][];
+		levels[0] = binner.getCountsRef();
+
+		for (int k = 1; k < nLevels; k++) {
+			levels[k] = new int[levels[k - 1].length / 2];
+		}
+
+		levelsUpdated = true;
+		firstBin = 0;
+		lastBin = -1;
+		lastLevel = -1;
+		lastFirstBin = -1;
+		lastLastBin = -1;
+		lastModCount = -1;
+		modCount = 0;
+	}
+
+	/**
+	 * Adds a value to the pyramid counts. All the levels are updated directly
+	 * 
+	 * @param value the value to add
+	 */
+	public void add(float value) {
+		binner.add(value);
+		int bin = binner.binIndex(value);
+
+		if (bin >= 0 && bin < binner.getNBins()) {
+			if (levelsUpdated) {
+				for (int k = 1; k < nLevels; k++) {
+					levels[k][bin >> k]++;
+				}
+			}
+
+			modCount++;
+		}
+	}
+
+	/**
+	 * Adds some values to the pyramid counts. The finest level is counted in parallel for large arrays, and the coarser
+	 * levels are recalculated the next time they are needed
+	 * 
+	 * @param values the values to add
+	 */
+	public void add(float[] values) {
+		binner.add(values);
+		levelsUpdated = false;
+		modCount++;
+	}
+
+	/**
+	 * Sets all the counts to zero
+	 */
+	public void clear() {
+		binner.clear();
+		levelsUpdated = false;
+		modCount++;
+	}
+
+	/**
+	 * Recalculates the coarser levels from the finest level
+	 */
+	protected void updateLevels() {
+		if (!levelsUpdated) {
+			for (int k = 1; k < nLevels; k++) {
+				int[] fine = levels[k - 1];
+				int[] coarse = levels[k];
+
+				for (int i = 0; i < coarse.length; i++) {
+					coarse[i] = fine[2 * i] + fine[2 * i + 1];
+				}
+			}
+
+			levelsUpdated = true;
+		}
+	}
+
+	/**
+	 * Selects the level that shows a number of bars closest to, but not above, the target number of bars in a given
+	 * range
+	 * 
+	 * @param lim the visible range
+	 * @param targetBars the target number of visible bars
+	 * 
+	 * @return the selected level
+	 */
+	public int selectLevel(float[] lim, int targetBars) {
+		double nFineBins = Math.abs(binner.valueToIndex(lim[1]) - binner.valueToIndex(lim[0]));
+
+		if (Double.isNaN(nFineBins) || targetBars < 1) {
+			return nLevels - 1;
+		}
+
+		int level = 0;
+
+		while (level < nLevels - 1 && nFineBins / (1 << level) > targetBars) {
+			level++;
+		}
+
+		return level;
+	}
+
+	/**
+	 * Returns the histogram points of the bins of a given level that are visible in a given range. The x coordinates
+	 * are the bin centers and the y coordinates the bin counts. One extra bin is added at each side, so the bars at the
+	 * range borders are complete
+	 * 
+	 * @param level the level
+	 * @param lim the visible range
+	 * 
+	 * @return the histogram points
+	 */
+	public GPointsArray getPoints(int level, float[] lim) {
+		updateLevels();
+		level = Math.max(0, Math.min(level, nLevels - 1));
+		obtainVisibleBins(level, lim);
+		GPointsArray points = new GPointsArray(Math.max(0, lastBin - firstBin + 1));
+
+		for (int i = firstBin; i <= lastBin; i++) {
+			points.add(binner.indexToValue((i + 0.5) * (1 << level)), levels[level][i], "");
+		}
+
+		return points;
+	}
+
+	/**
+	 * Returns the histogram points of the level that shows a number of bars close to the target in a given range
+	 * 
+	 * @param lim the visible range
+	 * @param targetBars the target number of visible bars
+	 * 
+	 * @return the histogram points
+	 */
+	public GPointsArray getPoints(float[] lim, int targetBars) {
+		return getPoints(selectLevel(lim, targetBars), lim);
+	}
+
+	/**
+	 * Calculates the first and last visible bins of a given level. It doesn't change the selection that was last sent
+	 * to a layer
+	 * 
+	 * @param level the level
+	 * @param lim the visible range
+	 */
+	protected void obtainVisibleBins(int level, float[] lim) {
+		int nBins = levels[level].length;
+		double index1 = binner.valueToIndex(Math.min(lim[0], lim[1])) / (1 << level);
+		double index2 = binner.valueToIndex(Math.max(lim[0], lim[1])) / (1 << level);
+
+		if (Double.isNaN(index1)) {
+			index1 = 0;
+		}
+
+		if (Double.isNaN(index2)) {
+			index2 = -1;
+		}
+
+		firstBin = (int) Math.max(0, Math.floor(index1) - 1);
+		lastBin = (int) Math.min(nBins - 1, Math.floor(index2) + 1);
+	}
+
+	/**
+	 * Updates the points of one of the plot layers if the selected level, the visible bins or the counts changed since
+	 * the last update. The plot x limits should be fixed (e.g. after a zoom), so the new points don't change them
+	 * 
+	 * @param plot the plot
+	 * @param layerId the id of the layer that displays the histogram
+	 * @param targetBars the target number of visible bars
+	 * 
+	 * @return true if the layer points were updated
+	 */
+	public boolean update(GPlot plot, String layerId, int targetBars) {
+		float[] lim = plot.getXLim();
+		int level = selectLevel(lim, targetBars);
+		obtainVisibleBins(level, lim);
+
+		if (level == lastLevel && firstBin == lastFirstBin && lastBin == lastLastBin && modCount == lastModCount) {
+			return false;
+		}
+
+		plot.setPoints(getPoints(level, lim), layerId);
+		lastLevel = level;
+		lastFirstBin = firstBin;
+		lastLastBin = lastBin;
+		lastModCount = modCount;
+
+		return true;
+	}
+
+	/**
+	 * Returns the number of levels
+	 * 
+	 * @return the number of levels
+	 */
+	public int getNLevels() {
+		return nLevels;
+	}
+
+	/**
+	 * Returns the counts of a given level
+	 * 
+	 * @param level the level
+	 * 
+	 * @return a copy of the level counts
+	 */
+	public int[] getCounts(int level) {
+		updateLevels();
+
+		return levels[level].clone();
+	}
+
+	/**
+	 * Returns the binner that holds the finest level bins
+	 * 
+	 * @return the binner
+	 */
+	public GBinner getBinner() {
+		return binner;
+	}
+}
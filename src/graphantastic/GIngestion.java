@@ -0,0 +1,539 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import processing.core.PApplet;
+
+/**
+ * Ingestion class. It reads text records from several sources (sockets, pipes and files that are appended to) and
+ * delivers them in batches to the plot layers. Each source is read by its own thread. Virtual threads are used when
+ * the Java runtime supports them, so hundreds of sources don't need hundreds of system threads. Otherwise, it falls
+ * back to daemon platform threads. The source layers are found when the sources are added, so the add methods should
+ * be called from the thread that modifies the plot.
+ * 
+ * @author ##author##
+ */
+public class GIngestion {
+	// The plot that receives the records
+	protected final GPlot plot;
+
+	// The thread factory used to start the source readers
+	protected final ThreadFactory threadFactory;
+	protected final boolean virtualThreads;
+
+	// The open sources
+	protected final ArrayList<Closeable> sources;
+	protected volatile boolean running;
+
+	// Statistics
+	protected final AtomicLong nRecords;
+
+	// Constants
+	public static final int MAX_BATCH_SIZE = 4096;
+	public static final int MAX_DATAGRAM_SIZE = 65536;
+	public static final long FILE_POLL_MILLIS = 50;
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Constructor
+	 * 
+	 * @param plot the plot that will receive the records
+	 */
+	public GIngestion(GPlot plot) {
+		this.plot = plot;
+		ThreadFactory factory = obtainVirtualThreadFactory();
+		virtualThreads = factory != null;
+		threadFactory = virtualThreads ? factory : new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "graphantastic-ingestion");
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+		sources = new ArrayList<Closeable>();
+		running = true;
+		nRecords = new AtomicLong();
+	}
+
+	/**
+	 * Returns a factory of virtual threads if the Java runtime supports them. Reflection is used so the library can
+	 * still be compiled and used with older Java versions
+	 * 
+	 * @return the virtual thread factory, or null if virtual threads are not supported
+	 */
+	protected static ThreadFactory obtainVirtualThreadFactory() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder,
+					"graphantastic-ingestion-", 0L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Connects to a TCP server and reads records from it, one per line
+	 * 
+	 * @param host the server host
+	 * @param port the server port
+	 * @param layerId the id of the layer that will receive the records
+	 */
+	public void addSocketSource(final String host, final int port, final String layerId) {
+		final GLayer layer = plot.getLayer(layerId);
+
+		if (layer == null) {
+			return;
+		}
+
+		start(new Runnable() {
+			public void run() {
+				Socket socket = null;
+
+				try {
+					socket = new Socket(host, port);
+
+					if (register(socket)) {
+						readLines(socket.getInputStream(), layer);
+					}
+				} catch (IOException e) {
+					reportError("TCP source " + host + ":" + port, e);
+				} finally {
+					close(socket);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Listens for TCP connections in a local port. Every accepted connection becomes a new source whose records, one
+	 * per line, are delivered to the same layer
+	 * 
+	 * @param port the local port
+	 * @param layerId the id of the layer that will receive the records
+	 */
+	public void addSocketServerSource(final int port, final String layerId) {
+		final GLayer layer = plot.getLayer(layerId);
+
+		if (layer == null) {
+			return;
+		}
+
+		start(new Runnable() {
+			public void run() {
+				ServerSocket serverSocket = null;
+
+				try {
+					serverSocket = new ServerSocket(port);
+
+					if (register(serverSocket)) {
+						while (running) {
+							final Socket socket = serverSocket.accept();
+
+							start(new Runnable() {
+								public void run() {
+									try {
+										if (register(socket)) {
+											readLines(socket.getInputStream(), layer);
+										}
+									} catch (IOException e) {
+										reportError("TCP connection in port " + port, e);
+									} finally {
+										close(socket);
+									}
+								}
+							});
+						}
+					}
+				} catch (IOException e) {
+					reportError("TCP server in port " + port, e);
+				} finally {
+					close(serverSocket);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Listens for UDP datagrams in a local port. Each datagram can contain several records, one per line
+	 * 
+	 * @param port the local port
+	 * @param layerId the id of the layer that will receive the records
+	 */
+	public void addDatagramSource(final int port, final String layerId) {
+		final GLayer layer = plot.getLayer(layerId);
+
+		if (layer == null) {
+			return;
+		}
+
+		start(new Runnable() {
+			public void run() {
+				DatagramSocket socket = null;
+
+				try {
+					socket = new DatagramSocket(port);
+
+					if (register(socket)) {
+						GRecordBatch batch = new GRecordBatch(layer, 64);
+						DatagramPacket packet = new DatagramPacket(new byte[MAX_DATAGRAM_SIZE], MAX_DATAGRAM_SIZE);
+
+						while (running) {
+							socket.receive(packet);
+							String text = new String(packet.getData(), packet.getOffset(), packet.getLength(), UTF8);
+							parseLines(text, batch);
+							deliver(batch);
+						}
+					}
+				} catch (IOException e) {
+					reportError("UDP source in port " + port, e);
+				} finally {
+					close(socket);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Reads records from an input stream, one per line. It can be used with pipes and with the standard input
+	 * 
+	 * @param stream the input stream. It will be closed when the ingestion stops
+	 * @param layerId the id of the layer that will receive the records
+	 */
+	public void addStreamSource(final InputStream stream, final String layerId) {
+		final GLayer layer = plot.getLayer(layerId);
+
+		if (layer == null) {
+			return;
+		}
+
+		start(new Runnable() {
+			public void run() {
+				try {
+					if (register(stream)) {
+						readLines(stream, layer);
+					}
+				} catch (IOException e) {
+					reportError("stream source", e);
+				} finally {
+					close(stream);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Reads records from a file, one per line, and keeps reading the new records that are appended to it. If the file
+	 * is truncated, it's read again from the start
+	 * 
+	 * @param path the file path
+	 * @param layerId the id of the layer that will receive the records
+	 */
+	public void addFileSource(final String path, final String layerId) {
+		final GLayer layer = plot.getLayer(layerId);
+
+		if (layer == null) {
+			return;
+		}
+
+		start(new Runnable() {
+			public void run() {
+				RandomAccessFile file = null;
+
+				try {
+					file = new RandomAccessFile(path, "r");
+
+					if (register(file)) {
+						followFile(file, layer);
+					}
+				} catch (IOException e) {
+					reportError("file source " + path, e);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					close(file);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Starts a new source reader thread
+	 * 
+	 * @param reader the source reader
+	 */
+	protected void start(Runnable reader) {
+		if (running) {
+			threadFactory.newThread(reader).start();
+		}
+	}
+
+	/**
+	 * Registers an open source, so it can be closed when the ingestion stops
+	 * 
+	 * @param source the open source
+	 * 
+	 * @return false if the ingestion was stopped and the source should not be read
+	 */
+	protected boolean register(Closeable source) {
+		synchronized (sources) {
+			if (running) {
+				sources.add(source);
+			}
+
+			return running;
+		}
+	}
+
+	/**
+	 * Closes a source and removes it from the list of open sources
+	 * 
+	 * @param source the source. It can be null
+	 */
+	protected void close(Closeable source) {
+		if (source != null) {
+			synchronized (sources) {
+				sources.remove(source);
+			}
+
+			try {
+				source.close();
+			} catch (IOException e) {
+				// Nothing else can be done
+			}
+		}
+	}
+
+	/**
+	 * Reads records from a stream, one per line, until the stream ends. The records are delivered when the batch is
+	 * full or when no more data is immediately available
+	 * 
+	 * @param stream the input stream
+	 * @param layer the layer that will receive the records
+	 * 
+	 * @throws IOException if the stream can't be read
+	 */
+	protected void readLines(InputStream stream, GLayer layer) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(stream, UTF8));
+		GRecordBatch batch = new GRecordBatch(layer, 64);
+		String line;
+
+		while (running && (line = reader.readLine()) != null) {
+			batch.parse(line, 0, line.length());
+
+			if (batch.getNRecords() >= MAX_BATCH_SIZE || !reader.ready()) {
+				deliver(batch);
+			}
+		}
+
+		deliver(batch);
+	}
+
+	/**
+	 * Reads the records that are appended to a file until the ingestion stops. The bytes of the last line are kept
+	 * until the line is complete, so the characters split between two reads are decoded correctly
+	 * 
+	 * @param file the file
+	 * @param layer the layer that will receive the records
+	 * 
+	 * @throws IOException if the file can't be read
+	 * @throws InterruptedException if the reader thread is interrupted
+	 */
+	protected void followFile(RandomAccessFile file, GLayer layer) throws IOException, InterruptedException {
+		GRecordBatch batch = new GRecordBatch(layer, 64);
+		byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+		int nPartialBytes = 0;
+		long position = 0;
+
+		while (running) {
+			long length = file.length();
+
+			if (length < position) {
+				// The file was truncated
+				position = 0;
+				nPartialBytes = 0;
+			}
+
+			if (length == position) {
+				deliver(batch);
+				Thread.sleep(FILE_POLL_MILLIS);
+				continue;
+			}
+
+			// Make room for lines longer than the buffer
+			if (nPartialBytes == buffer.length) {
+				byte[] newBuffer = new byte[2 * buffer.length];
+				System.arraycopy(buffer, 0, newBuffer, 0, nPartialBytes);
+				buffer = newBuffer;
+			}
+
+			// Read the new bytes after the bytes of the incomplete line
+			file.seek(position);
+			int nBytes = file.read(buffer, nPartialBytes,
+					(int) Math.min(buffer.length - nPartialBytes, length - position));
+
+			if (nBytes <= 0) {
+				continue;
+			}
+
+			position += nBytes;
+			int nBufferedBytes = nPartialBytes + nBytes;
+
+			// Decode the complete lines and keep the bytes of the last line for later if it's not complete
+			int lastBreak = nBufferedBytes - 1;
+
+			while (lastBreak >= nPartialBytes && buffer[lastBreak] != '\n') {
+				lastBreak--;
+			}
+
+			if (lastBreak >= nPartialBytes) {
+				parseLines(new String(buffer, 0, lastBreak + 1, UTF8), batch);
+				nPartialBytes = nBufferedBytes - lastBreak - 1;
+				System.arraycopy(buffer, lastBreak + 1, buffer, 0, nPartialBytes);
+			} else {
+				nPartialBytes = nBufferedBytes;
+			}
+
+			if (batch.getNRecords() >= MAX_BATCH_SIZE) {
+				deliver(batch);
+			}
+		}
+	}
+
+	/**
+	 * Parses the records in a text, one per line, and adds them to a batch
+	 * 
+	 * @param text the text
+	 * @param batch the batch
+	 */
+	protected void parseLines(String text, GRecordBatch batch) {
+		int start = 0;
+		int textLength = text.length();
+
+		while (start < textLength) {
+			int end = text.indexOf('\n', start);
+
+			if (end < 0) {
+				end = textLength;
+			}
+
+			batch.parse(text, start, end);
+			start = end + 1;
+		}
+	}
+
+	/**
+	 * Delivers a batch to its layer
+	 * 
+	 * @param batch the batch
+	 */
+	protected void deliver(GRecordBatch batch) {
+		nRecords.addAndGet(batch.deliver());
+	}
+
+	/**
+	 * Reports a source error, unless it was caused by stopping the ingestion
+	 * 
+	 * @param sourceName the source name
+	 * @param e the exception
+	 */
+	protected void reportError(String sourceName, Exception e) {
+		if (running) {
+			PApplet.println("Error reading from the " + sourceName + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Stops the ingestion, closing all the open sources
+	 */
+	public void stop() {
+		ArrayList<Closeable> openSources;
+
+		synchronized (sources) {
+			running = false;
+			openSources = new ArrayList<Closeable>(sources);
+		}
+
+		for (int i = 0; i < openSources.size(); i++) {
+			close(openSources.get(i));
+		}
+	}
+
+	/**
+	 * Checks if the ingestion is running
+	 * 
+	 * @return true if the ingestion is running
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Checks if the sources are read by virtual threads
+	 * 
+	 * @return true if the sources are read by virtual threads
+	 */
+	public boolean usesVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * Returns the number of open sources
+	 * 
+	 * @return the number of open sources
+	 */
+	public int getNSources() {
+		synchronized (sources) {
+			return sources.size();
+		}
+	}
+
+	/**
+	 * Returns the number of records delivered to the plot layers
+	 * 
+	 * @return the number of delivered records
+	 */
+	public long getNRecords() {
+		return nRecords.get();
+	}
+}
@@ -28,6 +28,10 @@
 package graphantastic;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 import processing.core.PApplet;
 import processing.core.PConstants;
 import processing.core.PFont;
@@ -73,9 +77,72 @@ public class GLayer implements PConstants {
 	protected int fontColor;
 	protected int fontSize;
 	protected PFont font;
-
-	// Helper variable
-	protected float[][] cuts = new float[4][2];
+	protected Thread fontThread;
+
+	// Clipped polygons cache. The limits version changes every time the
+	// limits, the scales or the dimensions change
+	protected final WeakHashMap<GPointsArray, GPolygonClipper> clippedPolygons;
+	protected int limitsVersion;
+
+	// Filled contour cache
+	protected float[] contourX;
+	protected float[] contourY;
+	protected int contourNVertices;
+	protected int contourShapeType;
+	protected float contourReferenceValue;
+	protected int contourPointsModCount;
+	protected int contourLimitsVersion;
+
+	// The plot that contains the layer. It's notified when other threads send new points to the layer
+	protected volatile GPlot plot;
+
+	// Points enqueued by other threads, waiting to be added to the layer
+	protected final GPointsQueue pendingPoints;
+
+	// Sources that buffer points in other threads, like the subscriptions to points publishers. Their buffered points
+	// are moved to a reusable array and consumed with the enqueued points
+	protected final ArrayList<GPointsSource> pointsSources;
+	protected final GPointsArray sourcePoints;
+
+	// Double buffering. A writer thread fills a back buffer and publishes it, and the published points replace the
+	// layer points on the drawing thread. The replaced buffers are recycled for the writer
+	protected final AtomicReference<GPointsArray> publishedPoints;
+	protected final AtomicReference<GPointsArray> recycledPoints;
+
+	// Frame preparation. The frames are prepared in a worker thread and published when they are ready to be drawn
+	protected final AtomicReference<GPreparedFrame> preparedFrame;
+	protected GPreparedFrame pendingFrame;
+
+	// Deferred projection. When the frames are prepared in a worker thread, the plot points are only updated when a
+	// synchronous drawing or query method needs them
+	protected boolean deferredProjection;
+	protected boolean plotPointsOutdated;
+
+	// Label placement cache
+	protected final GSpatialHash labelHash;
+	protected float[] labelWidths;
+	protected int labelWidthsPointsModCount;
+	protected String labelWidthsFontName;
+	protected int labelWidthsFontSize;
+	protected int[] labelOrder;
+	protected int labelOrderPointsModCount;
+	protected float[] labelOrderSizes;
+	protected int[] placedLabels;
+	protected float[] placedLabelPositions;
+	protected int nPlacedLabels;
+	protected int labelPlacementPointsModCount;
+	protected int labelPlacementLimitsVersion;
+
+	// Clipping helper variables
+	protected final float[] clipped = new float[4];
+	protected boolean clipStartCut;
+	protected boolean clipEndCut;
+	protected static final int OUT_LEFT = 1;
+	protected static final int OUT_RIGHT = 2;
+	protected static final int OUT_BOTTOM = 4;
+	protected static final int OUT_TOP = 8;
+	protected static final int CLIP_START_CUT = 1;
+	protected static final int CLIP_END_CUT = 2;
 
 	/**
 	 * GLayer constructor
@@ -131,7 +198,43 @@ public class GLayer implements PConstants {
 		fontName = "SansSerif.plain";
 		fontColor = this.parent.color(0);
 		fontSize = 11;
-		font = this.parent.createFont(fontName, fontSize);
+		font = GFontRegistry.obtain(this.parent, fontName, fontSize);
+		fontThread = Thread.currentThread();
+
+		clippedPolygons = new WeakHashMap<GPointsArray, GPolygonClipper>();
+		limitsVersion = 0;
+
+		contourX = new float[0];
+		contourY = new float[0];
+		contourNVertices = 0;
+		contourShapeType = -1;
+		contourPointsModCount = -1;
+		contourLimitsVersion = -1;
+
+		plot = null;
+		pendingPoints = new GPointsQueue(16);
+		pointsSources = new ArrayList<GPointsSource>();
+		sourcePoints = new GPointsArray();
+		publishedPoints = new AtomicReference<GPointsArray>();
+		recycledPoints = new AtomicReference<GPointsArray>();
+		preparedFrame = new AtomicReference<GPreparedFrame>();
+		pendingFrame = null;
+		deferredProjection = false;
+		plotPointsOutdated = false;
+
+		labelHash = new GSpatialHash();
+		labelWidths = new float[0];
+		labelWidthsPointsModCount = -1;
+		labelWidthsFontName = null;
+		labelWidthsFontSize = -1;
+		labelOrder = new int[0];
+		labelOrderPointsModCount = -1;
+		labelOrderSizes = null;
+		placedLabels = new int[0];
+		placedLabelPositions = new float[0];
+		nPlacedLabels = 0;
+		labelPlacementPointsModCount = -1;
+		labelPlacementLimitsVersion = -1;
 	}
 
 	/**
@@ -410,6 +513,39 @@ public class GLayer implements PConstants {
 		}
 	}
 
+	/**
+	 * Updates the plot points, the inside list and the histogram after a change in the layer points, limits, scales or
+	 * dimensions. If the projection is deferred, they are only marked as outdated
+	 */
+	protected void invalidatePlotPoints() {
+		if (deferredProjection) {
+			plotPointsOutdated = true;
+		} else {
+			updatePlotPoints();
+			updateInsideList();
+
+			if (hist != null) {
+				hist.setPlotPoints(plotPoints);
+			}
+		}
+	}
+
+	/**
+	 * Updates the plot points, the inside list and the histogram if they are outdated. It should be called before they
+	 * are used
+	 */
+	protected void validatePlotPoints() {
+		if (plotPointsOutdated) {
+			plotPointsOutdated = false;
+			updatePlotPoints();
+			updateInsideList();
+
+			if (hist != null) {
+				hist.setPlotPoints(plotPoints);
+			}
+		}
+	}
+
 	/**
 	 * Returns the position index of the closest point (if any) to a given position in the plot reference system
 	 * 
@@ -420,6 +556,7 @@ public class GLayer implements PConstants {
 	 */
 	public int getPointIndexAtPlotPos(float xPlot, float yPlot) {
 		int pointIndex = -1;
+		validatePlotPoints();
 
 		if (isInside(xPlot, yPlot)) {
 			int nPoints = plotPoints.getNPoints();
@@ -459,237 +596,215 @@ public class GLayer implements PConstants {
 	}
 
 	/**
-	 * Obtains the box intersections of the line that connects two given points
+	 * Calculates the region code of a given position in the plot reference system with respect to the plot box
 	 * 
-	 * @param plotPoint1 the first point in the plot reference system
-	 * @param plotPoint2 the second point in the plot reference system
+	 * @param xPlot x position in the plot reference system
+	 * @param yPlot y position in the plot reference system
 	 * 
-	 * @return the number of box intersections in the plot reference system
+	 * @return the region code. It's zero if the position is inside the box
 	 */
-	protected int obtainBoxIntersections(GPoint plotPoint1, GPoint plotPoint2) {
-		int nCuts = 0;
-
-		if (plotPoint1.isValid() && plotPoint2.isValid()) {
-			float x1 = plotPoint1.getX();
-			float y1 = plotPoint1.getY();
-			float x2 = plotPoint2.getX();
-			float y2 = plotPoint2.getY();
-			boolean inside1 = isInside(x1, y1);
-			boolean inside2 = isInside(x2, y2);
-
-			// Check if the line between the two points could cut the box
-			// borders
-			boolean dontCut = (inside1 && inside2) || (x1 < 0 && x2 < 0) || (x1 > dim[0] && x2 > dim[0])
-					|| (-y1 < 0 && -y2 < 0) || (-y1 > dim[1] && -y2 > dim[1]);
-
-			if (!dontCut) {
-				// Obtain the axis cuts of the line that cross the two points
-				float deltaX = x2 - x1;
-				float deltaY = y2 - y1;
-
-				if (deltaX == 0) {
-					nCuts = 2;
-					cuts[0][0] = x1;
-					cuts[0][1] = 0;
-					cuts[1][0] = x1;
-					cuts[1][1] = -dim[1];
-				} else if (deltaY == 0) {
-					nCuts = 2;
-					cuts[0][0] = 0;
-					cuts[0][1] = y1;
-					cuts[1][0] = dim[0];
-					cuts[1][1] = y1;
-				} else {
-					// Obtain the straight line (y = yCut + slope*x) that
-					// crosses the two points
-					float slope = deltaY / deltaX;
-					float yCut = y1 - slope * x1;
-
-					// Calculate the axis cuts of that line
-					nCuts = 4;
-					cuts[0][0] = -yCut / slope;
-					cuts[0][1] = 0;
-					cuts[1][0] = (-dim[1] - yCut) / slope;
-					cuts[1][1] = -dim[1];
-					cuts[2][0] = 0;
-					cuts[2][1] = yCut;
-					cuts[3][0] = dim[0];
-					cuts[3][1] = yCut + slope * dim[0];
-				}
-
-				// Select only the cuts that fall inside the box and are located
-				// between the two points
-				nCuts = getValidCuts(cuts, nCuts, plotPoint1, plotPoint2);
-
-				// Make sure we have the correct number of cuts
-				if (inside1 || inside2) {
-					// One of the points is inside. We should have one cut only
-					if (nCuts != 1) {
-						GPoint pointInside = (inside1) ? plotPoint1 : plotPoint2;
-
-						// If too many cuts
-						if (nCuts > 1) {
-							nCuts = removeDuplicatedCuts(cuts, nCuts, 0);
-
-							if (nCuts > 1) {
-								nCuts = removePointFromCuts(cuts, nCuts, pointInside, 0);
-
-								// In case of rounding number errors
-								if (nCuts > 1) {
-									nCuts = removeDuplicatedCuts(cuts, nCuts, 0.001f);
-
-									if (nCuts > 1) {
-										nCuts = removePointFromCuts(cuts, nCuts, pointInside, 0.001f);
-									}
-								}
-							}
-						}
-
-						// If the cut is missing, then it must be equal to the
-						// point inside
-						if (nCuts == 0) {
-							nCuts = 1;
-							cuts[0][0] = pointInside.getX();
-							cuts[0][1] = pointInside.getY();
-						}
-					}
-				} else {
-					// Both points are outside. We should have either two cuts
-					// or none
-					if (nCuts > 2) {
-						nCuts = removeDuplicatedCuts(cuts, nCuts, 0);
-
-						// In case of rounding number errors
-						if (nCuts > 2) {
-							nCuts = removeDuplicatedCuts(cuts, nCuts, 0.001f);
-						}
-					}
+	protected int outCode(float xPlot, float yPlot) {
+		return outCode(xPlot, yPlot, dim[0], dim[1]);
+	}
 
-					// If we have two cuts, order them (the closest to the first
-					// point goes first)
-					if (nCuts == 2) {
-						if ((PApplet.sq(cuts[0][0] - x1) + PApplet.sq(cuts[0][1] - y1)) > (PApplet.sq(cuts[1][0] - x1)
-								+ PApplet.sq(cuts[1][1] - y1))) {
-							cuts[2][0] = cuts[0][0];
-							cuts[2][1] = cuts[0][1];
-							cuts[0][0] = cuts[1][0];
-							cuts[0][1] = cuts[1][1];
-							cuts[1][0] = cuts[2][0];
-							cuts[1][1] = cuts[2][1];
-						}
-					}
+	/**
+	 * Calculates the region code of a given position in the plot reference system with respect to a box
+	 * 
+	 * @param xPlot x position in the plot reference system
+	 * @param yPlot y position in the plot reference system
+	 * @param xDim the box x dimension
+	 * @param yDim the box y dimension
+	 * 
+	 * @return the region code. It's zero if the position is inside the box
+	 */
+	protected static int outCode(float xPlot, float yPlot, float xDim, float yDim) {
+		int code = 0;
 
-					// If one cut is missing, add the same one twice
-					if (nCuts == 1) {
-						nCuts = 2;
-						cuts[1][0] = cuts[0][0];
-						cuts[1][1] = cuts[0][1];
-					}
-				}
+		if (xPlot < 0) {
+			code |= OUT_LEFT;
+		} else if (xPlot > xDim) {
+			code |= OUT_RIGHT;
+		}
 
-				// Some sanity checks
-				if ((inside1 || inside2) && nCuts != 1) {
-					PApplet.println("There should be one cut!!!");
-				} else if (!inside1 && !inside2 && nCuts != 0 && nCuts != 2) {
-					PApplet.println("There should be either 0 or 2 cuts!!! " + nCuts + " were found");
-				}
-			}
+		if (-yPlot < 0) {
+			code |= OUT_BOTTOM;
+		} else if (-yPlot > yDim) {
+			code |= OUT_TOP;
 		}
 
-		return nCuts;
+		return code;
 	}
 
 	/**
-	 * Returns only those cuts that are inside the box region and lie between the two given points
+	 * Clips the segment that connects two given positions in the plot reference system to the plot box. The clipped
+	 * segment is stored in the clipped array, and clipStartCut and clipEndCut indicate which of the two extremes was
+	 * moved to the box border. Both positions should be valid numbers
 	 * 
-	 * @param cuts the axis cuts
-	 * @param nCuts the number of cuts
-	 * @param plotPoint1 the first point in the plot reference system
-	 * @param plotPoint2 the second point in the plot reference system
+	 * @param x1 the first position x coordinate in the plot reference system
+	 * @param y1 the first position y coordinate in the plot reference system
+	 * @param x2 the second position x coordinate in the plot reference system
+	 * @param y2 the second position y coordinate in the plot reference system
 	 * 
-	 * @return the number of cuts inside the box region and between the two points
+	 * @return true if part of the segment is inside the box
 	 */
-	protected int getValidCuts(float[][] cuts, int nCuts, GPoint plotPoint1, GPoint plotPoint2) {
-		float x1 = plotPoint1.getX();
-		float y1 = plotPoint1.getY();
-		float x2 = plotPoint2.getX();
-		float y2 = plotPoint2.getY();
-		float deltaX = Math.abs(x2 - x1);
-		float deltaY = Math.abs(y2 - y1);
-		int counter = 0;
+	protected boolean clipSegment(float x1, float y1, float x2, float y2) {
+		int cuts = clipSegment(x1, y1, x2, y2, dim[0], dim[1], clipped);
 
-		for (int i = 0; i < nCuts; i++) {
-			// Check that the cut is inside the inner plotting area
-			if (isInside(cuts[i][0], cuts[i][1])) {
-				// Check that the cut falls between the two points
-				if (Math.abs(cuts[i][0] - x1) <= deltaX && Math.abs(cuts[i][1] - y1) <= deltaY
-						&& Math.abs(cuts[i][0] - x2) <= deltaX && Math.abs(cuts[i][1] - y2) <= deltaY) {
-					cuts[counter][0] = cuts[i][0];
-					cuts[counter][1] = cuts[i][1];
-					counter++;
-				}
-			}
+		if (cuts < 0) {
+			return false;
 		}
 
-		return counter;
+		clipStartCut = (cuts & CLIP_START_CUT) != 0;
+		clipEndCut = (cuts & CLIP_END_CUT) != 0;
+
+		return true;
 	}
 
 	/**
-	 * Removes duplicated cuts
+	 * Clips the segment that connects two given positions in the plot reference system to a box. It doesn't use the
+	 * layer state, so it can be used from any thread. Both positions should be valid numbers
 	 * 
-	 * @param cuts the box cuts
-	 * @param nCuts the number of cuts
-	 * @param tolerance maximum distance after which the points can't be duplicates
+	 * @param x1 the first position x coordinate in the plot reference system
+	 * @param y1 the first position y coordinate in the plot reference system
+	 * @param x2 the second position x coordinate in the plot reference system
+	 * @param y2 the second position y coordinate in the plot reference system
+	 * @param xDim the box x dimension
+	 * @param yDim the box y dimension
+	 * @param result the array where the clipped segment extremes will be stored
 	 * 
-	 * @return the number of cuts without the duplications
+	 * @return -1 if the segment is outside the box. Otherwise, a combination of the CLIP_START_CUT and CLIP_END_CUT
+	 *         flags indicating which of the two extremes was moved to the box border
 	 */
-	protected int removeDuplicatedCuts(float[][] cuts, int nCuts, float tolerance) {
-		int counter = 0;
+	protected static int clipSegment(float x1, float y1, float x2, float y2, float xDim, float yDim, float[] result) {
+		int code1 = outCode(x1, y1, xDim, yDim);
+		int code2 = outCode(x2, y2, xDim, yDim);
 
-		for (int i = 0; i < nCuts; i++) {
-			boolean repeated = false;
+		// Trivial cases: the segment is completely inside or it lies on one
+		// side of the box
+		if ((code1 | code2) == 0) {
+			result[0] = x1;
+			result[1] = y1;
+			result[2] = x2;
+			result[3] = y2;
+			return 0;
+		} else if ((code1 & code2) != 0) {
+			return -1;
+		}
 
-			for (int j = 0; j < counter; j++) {
-				if (Math.abs(cuts[j][0] - cuts[i][0]) <= tolerance && Math.abs(cuts[j][1] - cuts[i][1]) <= tolerance) {
-					repeated = true;
-					break;
-				}
+		// Liang-Barsky: reduce the parametric range [t0, t1] of the segment
+		// with each one of the box borders
+		float deltaX = x2 - x1;
+		float deltaY = y2 - y1;
+		float t0 = 0;
+		float t1 = 1;
+		int startBorder = -1;
+		int endBorder = -1;
+
+		for (int border = 0; border < 4; border++) {
+			float p, q;
+
+			if (border == 0) {
+				// x = 0
+				p = -deltaX;
+				q = x1;
+			} else if (border == 1) {
+				// x = xDim
+				p = deltaX;
+				q = xDim - x1;
+			} else if (border == 2) {
+				// y = 0
+				p = deltaY;
+				q = -y1;
+			} else {
+				// y = -yDim
+				p = -deltaY;
+				q = yDim + y1;
 			}
 
-			if (!repeated) {
-				cuts[counter][0] = cuts[i][0];
-				cuts[counter][1] = cuts[i][1];
-				counter++;
+			if (p == 0) {
+				if (q < 0) {
+					return -1;
+				}
+			} else {
+				float r = q / p;
+
+				if (p < 0) {
+					if (r > t1) {
+						return -1;
+					} else if (r > t0) {
+						t0 = r;
+						startBorder = border;
+					}
+				} else {
+					if (r < t0) {
+						return -1;
+					} else if (r < t1) {
+						t1 = r;
+						endBorder = border;
+					}
+				}
 			}
 		}
 
-		return counter;
+		// Calculate the new extremes, making sure that the cuts lie exactly on
+		// the box borders
+		int cuts = 0;
+
+		if (code1 != 0) {
+			result[0] = x1 + t0 * deltaX;
+			result[1] = y1 + t0 * deltaY;
+			snapToBorder(result, 0, startBorder, xDim, yDim);
+			cuts |= CLIP_START_CUT;
+		} else {
+			result[0] = x1;
+			result[1] = y1;
+		}
+
+		if (code2 != 0) {
+			result[2] = x1 + t1 * deltaX;
+			result[3] = y1 + t1 * deltaY;
+			snapToBorder(result, 2, endBorder, xDim, yDim);
+			cuts |= CLIP_END_CUT;
+		} else {
+			result[2] = x2;
+			result[3] = y2;
+		}
+
+		return cuts;
 	}
 
 	/**
-	 * Removes cuts that are equal to a given point
+	 * Moves one of the clipped segment extremes exactly to the box border that it cuts, correcting rounding errors
 	 * 
-	 * @param cuts the box cuts
-	 * @param nCuts the number of cuts
-	 * @param plotPoint the point to compare with
-	 * @param tolerance maximum distance after which the points can't be equal
-	 * 
-	 * @return the number of cuts without the point duplications
+	 * @param clipped the clipped segment extremes
+	 * @param index the extreme position in the clipped array (0 or 2)
+	 * @param border the box border: 0 (left), 1 (right), 2 (bottom), 3 (top) or -1 if it's not known
+	 * @param xDim the box x dimension
+	 * @param yDim the box y dimension
 	 */
-	protected int removePointFromCuts(float[][] cuts, int nCuts, GPoint plotPoint, float tolerance) {
-		float x = plotPoint.getX();
-		float y = plotPoint.getY();
-		int counter = 0;
+	private static void snapToBorder(float[] clipped, int index, int border, float xDim, float yDim) {
+		if (border == 0) {
+			clipped[index] = 0;
+		} else if (border == 1) {
+			clipped[index] = xDim;
+		} else if (border == 2) {
+			clipped[index + 1] = 0;
+		} else if (border == 3) {
+			clipped[index + 1] = -yDim;
+		}
 
-		for (int i = 0; i < nCuts; i++) {
-			if (Math.abs(cuts[i][0] - x) > tolerance || Math.abs(cuts[i][1] - y) > tolerance) {
-				cuts[counter][0] = cuts[i][0];
-				cuts[counter][1] = cuts[i][1];
-				counter++;
-			}
+		// Rounding errors could leave the other coordinate slightly outside
+		if (clipped[index] < 0) {
+			clipped[index] = 0;
+		} else if (clipped[index] > xDim) {
+			clipped[index] = xDim;
 		}
 
-		return counter;
+		if (-clipped[index + 1] < 0) {
+			clipped[index + 1] = 0;
+		} else if (-clipped[index + 1] > yDim) {
+			clipped[index + 1] = -yDim;
+		}
 	}
 
 	/**
@@ -698,6 +813,7 @@ public class GLayer implements PConstants {
 	 * @param histType the type of histogram to use. It can be GPlot.VERTICAL or GPlot.HORIZONTAL
 	 */
 	public void startHistogram(int histType) {
+		validatePlotPoints();
 		hist = new GHistogram(parent, histType, dim, plotPoints);
 	}
 
@@ -705,6 +821,7 @@ public class GLayer implements PConstants {
 	 * Draws the points inside the layer limits
 	 */
 	public void drawPoints() {
+		validatePlotPoints();
 		int nPoints = plotPoints.getNPoints();
 		int nColors = pointColors.length;
 		int nSizes = pointSizes.length;
@@ -756,6 +873,7 @@ public class GLayer implements PConstants {
 	 * @param pointShape the shape that should be used to represent the points
 	 */
 	public void drawPoints(PShape pointShape) {
+		validatePlotPoints();
 		int nPoints = plotPoints.getNPoints();
 		int nColors = pointColors.length;
 
@@ -790,6 +908,7 @@ public class GLayer implements PConstants {
 	 * @param pointImg the image that should be used to represent the points
 	 */
 	public void drawPoints(PImage pointImg) {
+		validatePlotPoints();
 		int nPoints = plotPoints.getNPoints();
 
 		parent.pushStyle();
@@ -900,6 +1019,7 @@ public class GLayer implements PConstants {
 	 * Draws lines connecting consecutive points in the layer
 	 */
 	public void drawLines() {
+		validatePlotPoints();
 		parent.pushStyle();
 		parent.noFill();
 		parent.stroke(lineColor);
@@ -907,21 +1027,168 @@ public class GLayer implements PConstants {
 		parent.strokeCap(SQUARE);
 
 		for (int i = 0; i < plotPoints.getNPoints() - 1; i++) {
-			if (inside.get(i) && inside.get(i + 1)) {
-				parent.line(plotPoints.getX(i), plotPoints.getY(i), plotPoints.getX(i + 1), plotPoints.getY(i + 1));
-			} else if (plotPoints.isValid(i) && plotPoints.isValid(i + 1)) {
-				// At least one of the points is outside the inner region.
-				// Obtain the valid line box intersections
-				int nCuts = obtainBoxIntersections(plotPoints.get(i), plotPoints.get(i + 1));
+			if (plotPoints.isValid(i) && plotPoints.isValid(i + 1)
+					&& clipSegment(plotPoints.getX(i), plotPoints.getY(i), plotPoints.getX(i + 1),
+							plotPoints.getY(i + 1))) {
+				parent.line(clipped[0], clipped[1], clipped[2], clipped[3]);
+			}
+		}
 
-				if (inside.get(i)) {
-					parent.line(plotPoints.getX(i), plotPoints.getY(i), cuts[0][0], cuts[0][1]);
-				} else if (inside.get(i + 1)) {
-					parent.line(cuts[0][0], cuts[0][1], plotPoints.getX(i + 1), plotPoints.getY(i + 1));
-				} else if (nCuts >= 2) {
-					parent.line(cuts[0][0], cuts[0][1], cuts[1][0], cuts[1][1]);
-				}
+		parent.popStyle();
+	}
+
+	/**
+	 * Starts the preparation of a new frame in a worker thread if the layer points or limits changed since the last
+	 * prepared frame. Only one frame is prepared at a time. It should be called from the thread that modifies the layer
+	 * 
+	 * @param executor the executor that will run the frame preparation
+	 * 
+	 * @return true if a new frame preparation was started
+	 */
+	public boolean prepareFrame(Executor executor) {
+		if (pendingFrame != null && !pendingFrame.isFinished()) {
+			return false;
+		}
+
+		GPreparedFrame lastFrame = preparedFrame.get();
+
+		if (lastFrame != null && lastFrame.isValid(points.getModCount(), limitsVersion)) {
+			return false;
+		}
+
+		// The finished frame buffers are reused for the points snapshot of the new frame
+		pendingFrame = new GPreparedFrame(this, pendingFrame);
+		executor.execute(pendingFrame);
+
+		return true;
+	}
+
+	/**
+	 * Draws the points inside the layer limits using the last prepared frame. It falls back to drawPoints() if no frame
+	 * has been prepared yet. The prepared frame can be one update behind the layer points. Use
+	 * drawPreparedPoints(PShape) or drawPreparedPoints(PImage) to represent the points with a shape or an image
+	 */
+	public void drawPreparedPoints() {
+		GPreparedFrame frame = preparedFrame.get();
+		boolean uniformPoints = pointColors.length == 1 && pointSizes.length == 1;
+
+		if (frame == null || frame.uniformPoints != uniformPoints) {
+			drawPoints();
+			return;
+		}
+
+		float[] coordinates = frame.pointCoordinates;
+		int[] indices = frame.pointIndices;
+		int nColors = pointColors.length;
+		int nSizes = pointSizes.length;
+
+		parent.pushStyle();
+		parent.ellipseMode(CENTER);
+		parent.noStroke();
+
+		if (nColors == 1) {
+			parent.fill(pointColors[0]);
+		}
+
+		for (int i = 0; i < frame.nPreparedPoints; i++) {
+			if (nColors > 1) {
+				parent.fill(pointColors[indices[i] % nColors]);
 			}
+
+			float pointSize = pointSizes[indices[i] % nSizes];
+			parent.ellipse(coordinates[2 * i], coordinates[2 * i + 1], pointSize, pointSize);
+		}
+
+		parent.popStyle();
+	}
+
+	/**
+	 * Draws the points inside the layer limits using the last prepared frame. It falls back to drawPoints(pointShape) if
+	 * no frame has been prepared yet. The prepared frame can be one update behind the layer points
+	 * 
+	 * @param pointShape the shape that should be used to represent the points
+	 */
+	public void drawPreparedPoints(PShape pointShape) {
+		GPreparedFrame frame = preparedFrame.get();
+		boolean uniformPoints = pointColors.length == 1 && pointSizes.length == 1;
+
+		if (frame == null || frame.uniformPoints != uniformPoints) {
+			drawPoints(pointShape);
+			return;
+		}
+
+		float[] coordinates = frame.pointCoordinates;
+		int[] indices = frame.pointIndices;
+		int nColors = pointColors.length;
+
+		parent.pushStyle();
+		parent.shapeMode(CENTER);
+
+		if (nColors == 1) {
+			parent.fill(pointColors[0]);
+			parent.stroke(pointColors[0]);
+		}
+
+		for (int i = 0; i < frame.nPreparedPoints; i++) {
+			if (nColors > 1) {
+				parent.fill(pointColors[indices[i] % nColors]);
+				parent.stroke(pointColors[indices[i] % nColors]);
+			}
+
+			parent.shape(pointShape, coordinates[2 * i], coordinates[2 * i + 1]);
+		}
+
+		parent.popStyle();
+	}
+
+	/**
+	 * Draws the points inside the layer limits using the last prepared frame. It falls back to drawPoints(pointImg) if
+	 * no frame has been prepared yet. The prepared frame can be one update behind the layer points
+	 * 
+	 * @param pointImg the image that should be used to represent the points
+	 */
+	public void drawPreparedPoints(PImage pointImg) {
+		GPreparedFrame frame = preparedFrame.get();
+
+		if (frame == null) {
+			drawPoints(pointImg);
+			return;
+		}
+
+		float[] coordinates = frame.pointCoordinates;
+
+		parent.pushStyle();
+		parent.imageMode(CENTER);
+
+		for (int i = 0; i < frame.nPreparedPoints; i++) {
+			parent.image(pointImg, coordinates[2 * i], coordinates[2 * i + 1]);
+		}
+
+		parent.popStyle();
+	}
+
+	/**
+	 * Draws the lines connecting consecutive points using the last prepared frame. It falls back to drawLines() if no
+	 * frame has been prepared yet. The prepared frame can be one update behind the layer points
+	 */
+	public void drawPreparedLines() {
+		GPreparedFrame frame = preparedFrame.get();
+
+		if (frame == null) {
+			drawLines();
+			return;
+		}
+
+		float[] coordinates = frame.lineCoordinates;
+
+		parent.pushStyle();
+		parent.noFill();
+		parent.stroke(lineColor);
+		parent.strokeWeight(lineWidth);
+		parent.strokeCap(SQUARE);
+
+		for (int i = 0; i < frame.nPreparedLines; i++) {
+			parent.line(coordinates[4 * i], coordinates[4 * i + 1], coordinates[4 * i + 2], coordinates[4 * i + 3]);
 		}
 
 		parent.popStyle();
@@ -936,35 +1203,29 @@ public class GLayer implements PConstants {
 	 * @param lw line width
 	 */
 	public void drawLine(GPoint point1, GPoint point2, int lc, float lw) {
-		GPoint plotPoint1 = valueToPlot(point1);
-		GPoint plotPoint2 = valueToPlot(point2);
-
-		if (plotPoint1.isValid() && plotPoint2.isValid()) {
-			boolean inside1 = isInside(plotPoint1);
-			boolean inside2 = isInside(plotPoint2);
+		drawPlotLine(valueToXPlot(point1.getX()), valueToYPlot(point1.getY()), valueToXPlot(point2.getX()),
+				valueToYPlot(point2.getY()), lc, lw);
+	}
 
+	/**
+	 * Draws the part of a line between two positions in the plot reference system that is inside the box
+	 * 
+	 * @param xPlot1 first position x coordinate in the plot reference system
+	 * @param yPlot1 first position y coordinate in the plot reference system
+	 * @param xPlot2 second position x coordinate in the plot reference system
+	 * @param yPlot2 second position y coordinate in the plot reference system
+	 * @param lc line color
+	 * @param lw line width
+	 */
+	protected void drawPlotLine(float xPlot1, float yPlot1, float xPlot2, float yPlot2, int lc, float lw) {
+		if (isValidNumber(xPlot1) && isValidNumber(yPlot1) && isValidNumber(xPlot2) && isValidNumber(yPlot2)
+				&& clipSegment(xPlot1, yPlot1, xPlot2, yPlot2)) {
 			parent.pushStyle();
 			parent.noFill();
 			parent.stroke(lc);
 			parent.strokeWeight(lw);
 			parent.strokeCap(SQUARE);
-
-			if (inside1 && inside2) {
-				parent.line(plotPoint1.getX(), plotPoint1.getY(), plotPoint2.getX(), plotPoint2.getY());
-			} else {
-				// At least one of the points is outside the inner region.
-				// Obtain the valid line box intersections
-				int nCuts = obtainBoxIntersections(plotPoint1, plotPoint2);
-
-				if (inside1) {
-					parent.line(plotPoint1.getX(), plotPoint1.getY(), cuts[0][0], cuts[0][1]);
-				} else if (inside2) {
-					parent.line(cuts[0][0], cuts[0][1], plotPoint2.getX(), plotPoint2.getY());
-				} else if (nCuts >= 2) {
-					parent.line(cuts[0][0], cuts[0][1], cuts[1][0], cuts[1][1]);
-				}
-			}
-
+			parent.line(clipped[0], clipped[1], clipped[2], clipped[3]);
 			parent.popStyle();
 		}
 	}
@@ -988,23 +1249,23 @@ public class GLayer implements PConstants {
 	 * @param lw line width
 	 */
 	public void drawLine(float slope, float yCut, int lc, float lw) {
-		GPoint point1, point2;
+		float y1, y2;
 
 		if (xLog && yLog) {
-			point1 = new GPoint(xLim[0], PApplet.pow(10, slope * PApplet.log(xLim[0]) / GPlot.LOG10 + yCut));
-			point2 = new GPoint(xLim[1], PApplet.pow(10, slope * PApplet.log(xLim[1]) / GPlot.LOG10 + yCut));
+			y1 = PApplet.pow(10, slope * PApplet.log(xLim[0]) / GPlot.LOG10 + yCut);
+			y2 = PApplet.pow(10, slope * PApplet.log(xLim[1]) / GPlot.LOG10 + yCut);
 		} else if (xLog) {
-			point1 = new GPoint(xLim[0], slope * PApplet.log(xLim[0]) / GPlot.LOG10 + yCut);
-			point2 = new GPoint(xLim[1], slope * PApplet.log(xLim[1]) / GPlot.LOG10 + yCut);
+			y1 = slope * PApplet.log(xLim[0]) / GPlot.LOG10 + yCut;
+			y2 = slope * PApplet.log(xLim[1]) / GPlot.LOG10 + yCut;
 		} else if (yLog) {
-			point1 = new GPoint(xLim[0], PApplet.pow(10, slope * xLim[0] + yCut));
-			point2 = new GPoint(xLim[1], PApplet.pow(10, slope * xLim[1] + yCut));
+			y1 = PApplet.pow(10, slope * xLim[0] + yCut);
+			y2 = PApplet.pow(10, slope * xLim[1] + yCut);
 		} else {
-			point1 = new GPoint(xLim[0], slope * xLim[0] + yCut);
-			point2 = new GPoint(xLim[1], slope * xLim[1] + yCut);
+			y1 = slope * xLim[0] + yCut;
+			y2 = slope * xLim[1] + yCut;
 		}
 
-		drawLine(point1, point2, lc, lw);
+		drawPlotLine(0, valueToYPlot(y1), dim[0], valueToYPlot(y2), lc, lw);
 	}
 
 	/**
@@ -1084,26 +1345,36 @@ public class GLayer implements PConstants {
 	 * @param referenceValue the reference value to use to close the contour
 	 */
 	public void drawFilledContour(int contourType, float referenceValue) {
-		// Get the points that compose the shape
-		GPointsArray shapePoints = null;
+		validatePlotPoints();
+
+		// Rebuild the shape only if something changed since the last time
+		if (contourType != contourShapeType || referenceValue != contourReferenceValue
+				|| points.getModCount() != contourPointsModCount || limitsVersion != contourLimitsVersion) {
+			if (contourType == GPlot.HORIZONTAL) {
+				updateHorizontalShape(referenceValue);
+			} else if (contourType == GPlot.VERTICAL) {
+				updateVerticalShape(referenceValue);
+			} else {
+				contourNVertices = 0;
+			}
 
-		if (contourType == GPlot.HORIZONTAL) {
-			shapePoints = getHorizontalShape(referenceValue);
-		} else if (contourType == GPlot.VERTICAL) {
-			shapePoints = getVerticalShape(referenceValue);
+			contourShapeType = contourType;
+			contourReferenceValue = referenceValue;
+			contourPointsModCount = points.getModCount();
+			contourLimitsVersion = limitsVersion;
 		}
 
 		// Draw the shape
-		if (shapePoints != null && shapePoints.getNPoints() > 0) {
+		if (contourNVertices > 0) {
 			parent.pushStyle();
 			parent.fill(lineColor);
 			parent.noStroke();
 
 			parent.beginShape();
 
-			for (int i = 0; i < shapePoints.getNPoints(); i++) {
-				if (shapePoints.isValid(i)) {
-					parent.vertex(shapePoints.getX(i), shapePoints.getY(i));
+			for (int i = 0; i < contourNVertices; i++) {
+				if (isValidNumber(contourX[i]) && isValidNumber(contourY[i])) {
+					parent.vertex(contourX[i], contourY[i]);
 				}
 			}
 
@@ -1114,37 +1385,54 @@ public class GLayer implements PConstants {
 	}
 
 	/**
-	 * Obtains the shape points of the horizontal contour that connects consecutive layer points and a reference value
+	 * Adds a vertex to the filled contour shape
 	 * 
-	 * @param referenceValue the reference value to use to close the contour
+	 * @param xPlot the vertex x position in the plot reference system
+	 * @param yPlot the vertex y position in the plot reference system
+	 */
+	protected void addContourVertex(float xPlot, float yPlot) {
+		if (contourNVertices == contourX.length) {
+			int newCapacity = 2 * contourNVertices + 8;
+			float[] newX = new float[newCapacity];
+			float[] newY = new float[newCapacity];
+			System.arraycopy(contourX, 0, newX, 0, contourNVertices);
+			System.arraycopy(contourY, 0, newY, 0, contourNVertices);
+			contourX = newX;
+			contourY = newY;
+		}
+
+		contourX[contourNVertices] = xPlot;
+		contourY[contourNVertices] = yPlot;
+		contourNVertices++;
+	}
+
+	/**
+	 * Calculates the shape of the horizontal contour that connects consecutive layer points and a reference value,
+	 * and stores it in the contour buffers
 	 * 
-	 * @return the shape points
+	 * @param referenceValue the reference value to use to close the contour
 	 */
-	protected GPointsArray getHorizontalShape(float referenceValue) {
+	protected void updateHorizontalShape(float referenceValue) {
 		// Collect the points and cuts inside the box
 		int nPoints = plotPoints.getNPoints();
-		GPointsArray shapePoints = new GPointsArray(2 * nPoints);
 		int indexFirstPoint = -1;
 		int indexLastPoint = -1;
+		boolean firstIsCut = false;
+		contourNVertices = 0;
 
 		for (int i = 0; i < nPoints; i++) {
 			if (plotPoints.isValid(i)) {
-				boolean addedPoints = false;
+				int nVerticesBefore = contourNVertices;
+				float x = plotPoints.getX(i);
+				float y = plotPoints.getY(i);
 
 				// Add the point if it's inside the box
 				if (inside.get(i)) {
-					shapePoints.add(plotPoints.getX(i), plotPoints.getY(i), "normal point");
-					addedPoints = true;
-				} else if (plotPoints.getX(i) >= 0 && plotPoints.getX(i) <= dim[0]) {
+					addContourVertex(x, y);
+				} else if (x >= 0 && x <= dim[0]) {
 					// If it's outside, add the projection of the point on the
 					// horizontal axes
-					if (-plotPoints.getY(i) < 0) {
-						shapePoints.add(plotPoints.getX(i), 0, "projection");
-						addedPoints = true;
-					} else {
-						shapePoints.add(plotPoints.getX(i), -dim[1], "projection");
-						addedPoints = true;
-					}
+					addContourVertex(x, (-y < 0) ? 0 : -dim[1]);
 				}
 
 				// Add the box cuts if there is any
@@ -1154,16 +1442,20 @@ public class GLayer implements PConstants {
 					nextIndex++;
 				}
 
-				if (nextIndex < nPoints && plotPoints.isValid(nextIndex)) {
-					int nCuts = obtainBoxIntersections(plotPoints.get(i), plotPoints.get(nextIndex));
+				if (nextIndex < nPoints && plotPoints.isValid(nextIndex)
+						&& clipSegment(x, y, plotPoints.getX(nextIndex), plotPoints.getY(nextIndex))) {
+					if (clipStartCut) {
+						firstIsCut |= contourNVertices == 0;
+						addContourVertex(clipped[0], clipped[1]);
+					}
 
-					for (int j = 0; j < nCuts; j++) {
-						shapePoints.add(cuts[j][0], cuts[j][1], "cut");
-						addedPoints = true;
+					if (clipEndCut) {
+						firstIsCut |= contourNVertices == 0;
+						addContourVertex(clipped[2], clipped[3]);
 					}
 				}
 
-				if (addedPoints) {
+				if (contourNVertices > nVerticesBefore) {
 					if (indexFirstPoint < 0) {
 						indexFirstPoint = i;
 					}
@@ -1174,19 +1466,16 @@ public class GLayer implements PConstants {
 		}
 
 		// Continue if there are points in the shape
-		if (shapePoints.getNPoints() > 0) {
+		if (contourNVertices > 0) {
 			// Calculate the starting point
-			GPoint startPoint = new GPoint(shapePoints.get(0));
-
-			if (startPoint.getX() != 0 && startPoint.getX() != dim[0]) {
-				if (startPoint.getLabel().equals("cut")) {
-					if (plotPoints.getX(indexFirstPoint) < 0) {
-						startPoint.setX(0);
-						startPoint.setLabel("extreme");
-					} else {
-						startPoint.setX(dim[0]);
-						startPoint.setLabel("extreme");
-					}
+			float startX = contourX[0];
+			float startY = contourY[0];
+			boolean startIsExtreme = false;
+
+			if (startX != 0 && startX != dim[0]) {
+				if (firstIsCut) {
+					startX = (plotPoints.getX(indexFirstPoint) < 0) ? 0 : dim[0];
+					startIsExtreme = true;
 				} else if (indexFirstPoint != 0) {
 					// Get the previous valid point
 					int prevIndex = indexFirstPoint - 1;
@@ -1196,21 +1485,18 @@ public class GLayer implements PConstants {
 					}
 
 					if (plotPoints.isValid(prevIndex)) {
-						if (plotPoints.getX(prevIndex) < 0) {
-							startPoint.setX(0);
-							startPoint.setLabel("extreme");
-						} else {
-							startPoint.setX(dim[0]);
-							startPoint.setLabel("extreme");
-						}
+						startX = (plotPoints.getX(prevIndex) < 0) ? 0 : dim[0];
+						startIsExtreme = true;
 					}
 				}
 			}
 
 			// Calculate the end point
-			GPoint endPoint = new GPoint(shapePoints.getLastPoint());
+			float endX = contourX[contourNVertices - 1];
+			float endY = contourY[contourNVertices - 1];
+			boolean endIsExtreme = false;
 
-			if (endPoint.getX() != 0 && endPoint.getX() != dim[0] && indexLastPoint != nPoints - 1) {
+			if (endX != 0 && endX != dim[0] && indexLastPoint != nPoints - 1) {
 				int nextIndex = indexLastPoint + 1;
 
 				while (nextIndex < nPoints - 1 && !plotPoints.isValid(nextIndex)) {
@@ -1218,19 +1504,14 @@ public class GLayer implements PConstants {
 				}
 
 				if (plotPoints.isValid(nextIndex)) {
-					if (plotPoints.getX(nextIndex) < 0) {
-						endPoint.setX(0);
-						endPoint.setLabel("extreme");
-					} else {
-						endPoint.setX(dim[0]);
-						endPoint.setLabel("extreme");
-					}
+					endX = (plotPoints.getX(nextIndex) < 0) ? 0 : dim[0];
+					endIsExtreme = true;
 				}
 			}
 
 			// Add the end point if it's a new extreme
-			if (endPoint.getLabel().equals("extreme")) {
-				shapePoints.add(endPoint);
+			if (endIsExtreme) {
+				addContourVertex(endX, endY);
 			}
 
 			// Add the reference connections
@@ -1238,60 +1519,51 @@ public class GLayer implements PConstants {
 				referenceValue = Math.min(yLim[0], yLim[1]);
 			}
 
-			float[] plotReference = valueToPlot(1, referenceValue);
+			float yPlotReference = valueToYPlot(referenceValue);
 
-			if (-plotReference[1] < 0) {
-				shapePoints.add(endPoint.getX(), 0);
-				shapePoints.add(startPoint.getX(), 0);
-			} else if (-plotReference[1] > dim[1]) {
-				shapePoints.add(endPoint.getX(), -dim[1]);
-				shapePoints.add(startPoint.getX(), -dim[1]);
-			} else {
-				shapePoints.add(endPoint.getX(), plotReference[1]);
-				shapePoints.add(startPoint.getX(), plotReference[1]);
+			if (-yPlotReference < 0) {
+				yPlotReference = 0;
+			} else if (-yPlotReference > dim[1]) {
+				yPlotReference = -dim[1];
 			}
 
+			addContourVertex(endX, yPlotReference);
+			addContourVertex(startX, yPlotReference);
+
 			// Add the starting point if it's a new extreme
-			if (startPoint.getLabel().equals("extreme")) {
-				shapePoints.add(startPoint);
+			if (startIsExtreme) {
+				addContourVertex(startX, startY);
 			}
 		}
-
-		return shapePoints;
 	}
 
 	/**
-	 * Obtains the shape points of the vertical contour that connects consecutive layer points and a reference value
+	 * Calculates the shape of the vertical contour that connects consecutive layer points and a reference value, and
+	 * stores it in the contour buffers
 	 * 
 	 * @param referenceValue the reference value to use to close the contour
-	 * 
-	 * @return the shape points
 	 */
-	protected GPointsArray getVerticalShape(float referenceValue) {
+	protected void updateVerticalShape(float referenceValue) {
 		// Collect the points and cuts inside the box
 		int nPoints = plotPoints.getNPoints();
-		GPointsArray shapePoints = new GPointsArray(2 * nPoints);
 		int indexFirstPoint = -1;
 		int indexLastPoint = -1;
+		boolean firstIsCut = false;
+		contourNVertices = 0;
 
 		for (int i = 0; i < nPoints; i++) {
 			if (plotPoints.isValid(i)) {
-				boolean addedPoints = false;
+				int nVerticesBefore = contourNVertices;
+				float x = plotPoints.getX(i);
+				float y = plotPoints.getY(i);
 
 				// Add the point if it's inside the box
 				if (inside.get(i)) {
-					shapePoints.add(plotPoints.getX(i), plotPoints.getY(i), "normal point");
-					addedPoints = true;
-				} else if (-plotPoints.getY(i) >= 0 && -plotPoints.getY(i) <= dim[1]) {
+					addContourVertex(x, y);
+				} else if (-y >= 0 && -y <= dim[1]) {
 					// If it's outside, add the projection of the point on the
 					// vertical axes
-					if (plotPoints.getX(i) < 0) {
-						shapePoints.add(0, plotPoints.getY(i), "projection");
-						addedPoints = true;
-					} else {
-						shapePoints.add(dim[0], plotPoints.getY(i), "projection");
-						addedPoints = true;
-					}
+					addContourVertex((x < 0) ? 0 : dim[0], y);
 				}
 
 				// Add the box cuts if there is any
@@ -1301,16 +1573,20 @@ public class GLayer implements PConstants {
 					nextIndex++;
 				}
 
-				if (nextIndex < nPoints && plotPoints.isValid(nextIndex)) {
-					int nCuts = obtainBoxIntersections(plotPoints.get(i), plotPoints.get(nextIndex));
+				if (nextIndex < nPoints && plotPoints.isValid(nextIndex)
+						&& clipSegment(x, y, plotPoints.getX(nextIndex), plotPoints.getY(nextIndex))) {
+					if (clipStartCut) {
+						firstIsCut |= contourNVertices == 0;
+						addContourVertex(clipped[0], clipped[1]);
+					}
 
-					for (int j = 0; j < nCuts; j++) {
-						shapePoints.add(cuts[j][0], cuts[j][1], "cut");
-						addedPoints = true;
+					if (clipEndCut) {
+						firstIsCut |= contourNVertices == 0;
+						addContourVertex(clipped[2], clipped[3]);
 					}
 				}
 
-				if (addedPoints) {
+				if (contourNVertices > nVerticesBefore) {
 					if (indexFirstPoint < 0) {
 						indexFirstPoint = i;
 					}
@@ -1321,19 +1597,16 @@ public class GLayer implements PConstants {
 		}
 
 		// Continue if there are points in the shape
-		if (shapePoints.getNPoints() > 0) {
+		if (contourNVertices > 0) {
 			// Calculate the starting point
-			GPoint startPoint = new GPoint(shapePoints.get(0));
-
-			if (startPoint.getY() != 0 && startPoint.getY() != -dim[1]) {
-				if (startPoint.getLabel().equals("cut")) {
-					if (-plotPoints.getY(indexFirstPoint) < 0) {
-						startPoint.setY(0);
-						startPoint.setLabel("extreme");
-					} else {
-						startPoint.setY(-dim[1]);
-						startPoint.setLabel("extreme");
-					}
+			float startX = contourX[0];
+			float startY = contourY[0];
+			boolean startIsExtreme = false;
+
+			if (startY != 0 && startY != -dim[1]) {
+				if (firstIsCut) {
+					startY = (-plotPoints.getY(indexFirstPoint) < 0) ? 0 : -dim[1];
+					startIsExtreme = true;
 				} else if (indexFirstPoint != 0) {
 					// Get the previous valid point
 					int prevIndex = indexFirstPoint - 1;
@@ -1343,21 +1616,18 @@ public class GLayer implements PConstants {
 					}
 
 					if (plotPoints.isValid(prevIndex)) {
-						if (-plotPoints.getY(prevIndex) < 0) {
-							startPoint.setY(0);
-							startPoint.setLabel("extreme");
-						} else {
-							startPoint.setY(-dim[1]);
-							startPoint.setLabel("extreme");
-						}
+						startY = (-plotPoints.getY(prevIndex) < 0) ? 0 : -dim[1];
+						startIsExtreme = true;
 					}
 				}
 			}
 
 			// Calculate the end point
-			GPoint endPoint = new GPoint(shapePoints.getLastPoint());
+			float endX = contourX[contourNVertices - 1];
+			float endY = contourY[contourNVertices - 1];
+			boolean endIsExtreme = false;
 
-			if (endPoint.getY() != 0 && endPoint.getY() != -dim[1] && indexLastPoint != nPoints - 1) {
+			if (endY != 0 && endY != -dim[1] && indexLastPoint != nPoints - 1) {
 				int nextIndex = indexLastPoint + 1;
 
 				while (nextIndex < nPoints - 1 && !plotPoints.isValid(nextIndex)) {
@@ -1365,19 +1635,14 @@ public class GLayer implements PConstants {
 				}
 
 				if (plotPoints.isValid(nextIndex)) {
-					if (-plotPoints.getY(nextIndex) < 0) {
-						endPoint.setY(0);
-						endPoint.setLabel("extreme");
-					} else {
-						endPoint.setY(-dim[1]);
-						endPoint.setLabel("extreme");
-					}
+					endY = (-plotPoints.getY(nextIndex) < 0) ? 0 : -dim[1];
+					endIsExtreme = true;
 				}
 			}
 
 			// Add the end point if it's a new extreme
-			if (endPoint.getLabel().equals("extreme")) {
-				shapePoints.add(endPoint);
+			if (endIsExtreme) {
+				addContourVertex(endX, endY);
 			}
 
 			// Add the reference connections
@@ -1385,26 +1650,22 @@ public class GLayer implements PConstants {
 				referenceValue = Math.min(xLim[0], xLim[1]);
 			}
 
-			float[] plotReference = valueToPlot(referenceValue, 1);
+			float xPlotReference = valueToXPlot(referenceValue);
 
-			if (plotReference[0] < 0) {
-				shapePoints.add(0, endPoint.getY());
-				shapePoints.add(0, startPoint.getY());
-			} else if (plotReference[0] > dim[0]) {
-				shapePoints.add(dim[0], endPoint.getY());
-				shapePoints.add(dim[0], startPoint.getY());
-			} else {
-				shapePoints.add(plotReference[0], endPoint.getY());
-				shapePoints.add(plotReference[0], startPoint.getY());
+			if (xPlotReference < 0) {
+				xPlotReference = 0;
+			} else if (xPlotReference > dim[0]) {
+				xPlotReference = dim[0];
 			}
 
+			addContourVertex(xPlotReference, endY);
+			addContourVertex(xPlotReference, startY);
+
 			// Add the starting point if it's a new extreme
-			if (startPoint.getLabel().equals("extreme")) {
-				shapePoints.add(startPoint);
+			if (startIsExtreme) {
+				addContourVertex(startX, startY);
 			}
 		}
-
-		return shapePoints;
 	}
 
 	/**
@@ -1424,7 +1685,7 @@ public class GLayer implements PConstants {
 			parent.pushStyle();
 			parent.rectMode(CORNER);
 			parent.noStroke();
-			parent.textFont(font);
+			parent.textFont(obtainFont());
 			parent.textSize(fontSize);
 			parent.textAlign(LEFT, BOTTOM);
 
@@ -1454,10 +1715,173 @@ public class GLayer implements PConstants {
 		}
 	}
 
+	/**
+	 * Draws the labels of all the points inside the box that don't collide with each other. The labels are placed
+	 * greedily, starting with the largest points. Each label is tried first at the usual label position and then at
+	 * the mirrored positions around the point, and it's skipped if all of them overlap an already placed label. The
+	 * placement is cached until the points, the limits or the font change
+	 */
+	public void drawAllLabels() {
+		parent.pushStyle();
+		parent.textFont(obtainFont());
+		parent.textSize(fontSize);
+		updateLabelPlacement();
+
+		if (nPlacedLabels > 0) {
+			float delta = fontSize / 4;
+			parent.rectMode(CORNER);
+			parent.noStroke();
+			parent.textAlign(LEFT, BOTTOM);
+
+			// Draw the backgrounds
+			parent.fill(labelBgColor);
+
+			for (int k = 0; k < nPlacedLabels; k++) {
+				parent.rect(placedLabelPositions[2 * k] - delta, placedLabelPositions[2 * k + 1] - fontSize - delta,
+						labelWidths[placedLabels[k]] + 2 * delta, fontSize + 2 * delta);
+			}
+
+			// Draw the texts
+			parent.fill(fontColor);
+
+			for (int k = 0; k < nPlacedLabels; k++) {
+				parent.text(points.getLabel(placedLabels[k]), placedLabelPositions[2 * k],
+						placedLabelPositions[2 * k + 1]);
+			}
+		}
+
+		parent.popStyle();
+	}
+
+	/**
+	 * Updates the cached label widths, label priorities and label positions if necessary. The current font should be
+	 * already set in the parent applet
+	 */
+	protected void updateLabelPlacement() {
+		validatePlotPoints();
+		int nPoints = points.getNPoints();
+		int modCount = points.getModCount();
+		boolean placementChanged = false;
+
+		// Measure the labels
+		if (modCount != labelWidthsPointsModCount || !fontName.equals(labelWidthsFontName)
+				|| fontSize != labelWidthsFontSize) {
+			if (labelWidths.length < nPoints) {
+				labelWidths = new float[nPoints];
+			}
+
+			for (int i = 0; i < nPoints; i++) {
+				String label = points.getLabel(i);
+				labelWidths[i] = (label == null || label.isEmpty()) ? 0 : parent.textWidth(label);
+			}
+
+			labelWidthsPointsModCount = modCount;
+			labelWidthsFontName = fontName;
+			labelWidthsFontSize = fontSize;
+			placementChanged = true;
+		}
+
+		// Sort the points by priority
+		if (modCount != labelOrderPointsModCount || pointSizes != labelOrderSizes) {
+			updateLabelOrder(nPoints);
+			labelOrderPointsModCount = modCount;
+			labelOrderSizes = pointSizes;
+			placementChanged = true;
+		}
+
+		if (placementChanged || modCount != labelPlacementPointsModCount
+				|| limitsVersion != labelPlacementLimitsVersion) {
+			placeLabels(nPoints);
+			labelPlacementPointsModCount = modCount;
+			labelPlacementLimitsVersion = limitsVersion;
+		}
+	}
+
+	/**
+	 * Sorts the point indices by decreasing point size. Points with the same size keep their original order
+	 * 
+	 * @param nPoints the number of points
+	 */
+	protected void updateLabelOrder(int nPoints) {
+		if (labelOrder.length < nPoints) {
+			labelOrder = new int[nPoints];
+		}
+
+		int nSizes = pointSizes.length;
+
+		if (nSizes == 1) {
+			for (int i = 0; i < nPoints; i++) {
+				labelOrder[i] = i;
+			}
+		} else {
+			// Pack the size and the index in a single long, so a primitive sort gives the order
+			long[] keys = new long[nPoints];
+
+			for (int i = 0; i < nPoints; i++) {
+				int sizeBits = Float.floatToIntBits(pointSizes[i % nSizes]);
+				int sortableBits = (sizeBits >= 0) ? sizeBits : sizeBits ^ Integer.MAX_VALUE;
+				keys[i] = ((long) ~sortableBits << 32) | i;
+			}
+
+			Arrays.sort(keys);
+
+			for (int i = 0; i < nPoints; i++) {
+				labelOrder[i] = (int) keys[i];
+			}
+		}
+	}
+
+	/**
+	 * Places the labels greedily in priority order, skipping those that collide with already placed labels
+	 * 
+	 * @param nPoints the number of points
+	 */
+	protected void placeLabels(int nPoints) {
+		if (placedLabels.length < nPoints) {
+			placedLabels = new int[nPoints];
+			placedLabelPositions = new float[2 * nPoints];
+		}
+
+		float delta = fontSize / 4;
+		float height = fontSize + 2 * delta;
+		labelHash.reset(2 * height, nPoints);
+		nPlacedLabels = 0;
+
+		for (int k = 0; k < nPoints; k++) {
+			int i = labelOrder[k];
+
+			if (labelWidths[i] > 0 && inside.get(i)) {
+				float xPlot = plotPoints.getX(i);
+				float yPlot = plotPoints.getY(i);
+				float width = labelWidths[i] + 2 * delta;
+
+				// Try the four positions around the point
+				for (int pos = 0; pos < 4; pos++) {
+					float xLabelPos = (pos % 2 == 0) ? xPlot + labelSeparation[0]
+							: xPlot - labelSeparation[0] - labelWidths[i];
+					float yLabelPos = (pos < 2) ? yPlot - labelSeparation[1] : yPlot + labelSeparation[1] + fontSize;
+					float x1 = xLabelPos - delta;
+					float y1 = yLabelPos - fontSize - delta;
+
+					if (!labelHash.overlaps(x1, y1, x1 + width, y1 + height)) {
+						labelHash.add(x1, y1, x1 + width, y1 + height);
+						placedLabels[nPlacedLabels] = i;
+						placedLabelPositions[2 * nPlacedLabels] = xLabelPos;
+						placedLabelPositions[2 * nPlacedLabels + 1] = yLabelPos;
+						nPlacedLabels++;
+						break;
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Draws the histogram
 	 */
 	public void drawHistogram() {
+		validatePlotPoints();
+
 		if (hist != null) {
 			hist.draw(valueToPlot(histBasePoint));
 		}
@@ -1471,77 +1895,33 @@ public class GLayer implements PConstants {
 	 */
 	public void drawPolygon(GPointsArray polygonPoints, int polygonColor) {
 		if (polygonPoints.getNPoints() > 2) {
-			// Remove the polygon invalid points
-			GPointsArray plotPolygonPoints = valueToPlot(polygonPoints);
-			plotPolygonPoints.removeInvalidPoints();
-
-			// Create a temporal array with the points inside the plotting area
-			// and the valid box cuts
-			int nPoints = plotPolygonPoints.getNPoints();
-			GPointsArray tmp = new GPointsArray(2 * nPoints);
-
-			for (int i = 0; i < nPoints; i++) {
-				if (isInside(plotPolygonPoints.get(i))) {
-					tmp.add(plotPolygonPoints.getX(i), plotPolygonPoints.getY(i), "normal point");
-				}
+			// Clip the polygon only if it changed since the last time
+			GPolygonClipper clipper = clippedPolygons.get(polygonPoints);
 
-				// Obtain the cuts with the next point
-				int nextIndex = (i + 1 < nPoints) ? i + 1 : 0;
-				int nCuts = obtainBoxIntersections(plotPolygonPoints.get(i), plotPolygonPoints.get(nextIndex));
-
-				if (nCuts == 1) {
-					tmp.add(cuts[0][0], cuts[0][1], "single cut");
-				} else if (nCuts > 1) {
-					tmp.add(cuts[0][0], cuts[0][1], "double cut");
-					tmp.add(cuts[1][0], cuts[1][1], "double cut");
-				}
+			if (clipper == null) {
+				clipper = new GPolygonClipper();
+				clippedPolygons.put(polygonPoints, clipper);
 			}
 
-			// Final version of the polygon
-			nPoints = tmp.getNPoints();
-			GPointsArray croppedPoly = new GPointsArray(2 * nPoints);
-
-			for (int i = 0; i < nPoints; i++) {
-				// Add the point
-				croppedPoly.add(tmp.get(i));
-
-				// Add new points in case we have two consecutive cuts, one of
-				// them is single, and they are in consecutive axes
-				int next = (i + 1 < nPoints) ? i + 1 : 0;
-				String label = tmp.getLabel(i);
-				String nextLabel = tmp.getLabel(next);
-
-				boolean cond = (label.equals("single cut") && nextLabel.equals("single cut"))
-						|| (label.equals("single cut") && nextLabel.equals("double cut"))
-						|| (label.equals("double cut") && nextLabel.equals("single cut"));
-
-				if (cond) {
-					float x1 = tmp.getX(i);
-					float y1 = tmp.getY(i);
-					float x2 = tmp.getX(next);
-					float y2 = tmp.getY(next);
-					float deltaX = Math.abs(x2 - x1);
-					float deltaY = Math.abs(y2 - y1);
-
-					// Check that they come from consecutive axes
-					if (deltaX > 0 && deltaY > 0 && deltaX != dim[0] && deltaY != dim[1]) {
-						float x = (x1 == 0 || x1 == dim[0]) ? x1 : x2;
-						float y = (y1 == 0 || y1 == -dim[1]) ? y1 : y2;
-						croppedPoly.add(x, y, "special cut");
-					}
-				}
+			if (!clipper.isValid(polygonPoints.getModCount(), limitsVersion)) {
+				updateClippedPolygon(clipper, polygonPoints);
 			}
 
 			// Draw the cropped polygon
-			if (croppedPoly.getNPoints() > 2) {
+			int nVertices = clipper.getNVertices();
+
+			if (nVertices > 2) {
+				float[] x = clipper.getXRef();
+				float[] y = clipper.getYRef();
+
 				parent.pushStyle();
 				parent.fill(polygonColor);
 				parent.noStroke();
 
 				parent.beginShape();
 
-				for (int i = 0; i < croppedPoly.getNPoints(); i++) {
-					parent.vertex(croppedPoly.getX(i), croppedPoly.getY(i));
+				for (int i = 0; i < nVertices; i++) {
+					parent.vertex(x[i], y[i]);
 				}
 
 				parent.endShape(CLOSE);
@@ -1551,6 +1931,32 @@ public class GLayer implements PConstants {
 		}
 	}
 
+	/**
+	 * Projects a polygon to the plot reference system and clips it to the plot box
+	 * 
+	 * @param clipper the polygon clipper where the clipped polygon will be stored
+	 * @param polygonPoints the points that define the polygon
+	 */
+	protected void updateClippedPolygon(GPolygonClipper clipper, GPointsArray polygonPoints) {
+		int nPoints = polygonPoints.getNPoints();
+		clipper.reset(nPoints);
+
+		// Add the valid polygon points
+		for (int i = 0; i < nPoints; i++) {
+			if (polygonPoints.isValid(i)) {
+				float xPlot = valueToXPlot(polygonPoints.getX(i));
+				float yPlot = valueToYPlot(polygonPoints.getY(i));
+
+				if (isValidNumber(xPlot) && isValidNumber(yPlot)) {
+					clipper.addVertex(xPlot, yPlot);
+				}
+			}
+		}
+
+		clipper.clip(dim[0], dim[1]);
+		clipper.setState(polygonPoints.getModCount(), limitsVersion);
+	}
+
 	/**
 	 * Draws an annotation at a given plot value
 	 * 
@@ -1574,7 +1980,7 @@ public class GLayer implements PConstants {
 			}
 
 			parent.pushStyle();
-			parent.textFont(font);
+			parent.textFont(obtainFont());
 			parent.textSize(fontSize);
 			parent.fill(fontColor);
 			parent.textAlign(horAlign, verAlign);
@@ -1593,12 +1999,13 @@ public class GLayer implements PConstants {
 		if (xDim > 0 && yDim > 0) {
 			dim[0] = xDim;
 			dim[1] = yDim;
-			updatePlotPoints();
+			limitsVersion++;
 
 			if (hist != null) {
 				hist.setDim(xDim, yDim);
-				hist.setPlotPoints(plotPoints);
 			}
+
+			invalidatePlotPoints();
 		}
 	}
 
@@ -1625,12 +2032,8 @@ public class GLayer implements PConstants {
 			} else {
 				xLim[0] = xMin;
 				xLim[1] = xMax;
-				updatePlotPoints();
-				updateInsideList();
-
-				if (hist != null) {
-					hist.setPlotPoints(plotPoints);
-				}
+				limitsVersion++;
+				invalidatePlotPoints();
 			}
 		}
 	}
@@ -1658,12 +2061,8 @@ public class GLayer implements PConstants {
 			} else {
 				yLim[0] = yMin;
 				yLim[1] = yMax;
-				updatePlotPoints();
-				updateInsideList();
-
-				if (hist != null) {
-					hist.setPlotPoints(plotPoints);
-				}
+				limitsVersion++;
+				invalidatePlotPoints();
 			}
 		}
 	}
@@ -1703,12 +2102,8 @@ public class GLayer implements PConstants {
 				yLim[1] = yMax;
 			}
 
-			updatePlotPoints();
-			updateInsideList();
-
-			if (hist != null) {
-				hist.setPlotPoints(plotPoints);
-			}
+			limitsVersion++;
+			invalidatePlotPoints();
 		}
 	}
 
@@ -1752,12 +2147,8 @@ public class GLayer implements PConstants {
 				yLog = newYLog;
 			}
 
-			updatePlotPoints();
-			updateInsideList();
-
-			if (hist != null) {
-				hist.setPlotPoints(plotPoints);
-			}
+			limitsVersion++;
+			invalidatePlotPoints();
 		}
 	}
 
@@ -1788,12 +2179,8 @@ public class GLayer implements PConstants {
 			}
 
 			xLog = newXLog;
-			updatePlotPoints();
-			updateInsideList();
-
-			if (hist != null) {
-				hist.setPlotPoints(plotPoints);
-			}
+			limitsVersion++;
+			invalidatePlotPoints();
 		}
 	}
 
@@ -1812,12 +2199,8 @@ public class GLayer implements PConstants {
 			}
 
 			yLog = newYLog;
-			updatePlotPoints();
-			updateInsideList();
-
-			if (hist != null) {
-				hist.setPlotPoints(plotPoints);
-			}
+			limitsVersion++;
+			invalidatePlotPoints();
 		}
 	}
 
@@ -1828,12 +2211,7 @@ public class GLayer implements PConstants {
 	 */
 	public void setPoints(GPointsArray newPoints) {
 		points.set(newPoints);
-		updatePlotPoints();
-		updateInsideList();
-
-		if (hist != null) {
-			hist.setPlotPoints(plotPoints);
-		}
+		invalidatePlotPoints();
 	}
 
 	/**
@@ -1846,11 +2224,14 @@ public class GLayer implements PConstants {
 	 */
 	public void setPoint(int index, float x, float y, String label) {
 		points.set(index, x, y, label);
-		plotPoints.set(index, valueToXPlot(x), valueToYPlot(y), label);
-		inside.set(index, isInside(plotPoints.get(index)));
 
-		if (hist != null) {
-			hist.setPlotPoint(index, plotPoints.get(index));
+		if (!plotPointsOutdated) {
+			plotPoints.set(index, valueToXPlot(x), valueToYPlot(y), label);
+			inside.set(index, isInside(plotPoints.get(index)));
+
+			if (hist != null) {
+				hist.setPlotPoint(index, plotPoints.get(index));
+			}
 		}
 	}
 
@@ -1884,11 +2265,14 @@ public class GLayer implements PConstants {
 	 */
 	public void addPoint(float x, float y, String label) {
 		points.add(x, y, label);
-		plotPoints.add(valueToXPlot(x), valueToYPlot(y), label);
-		inside.add(isInside(plotPoints.getLastPoint()));
 
-		if (hist != null) {
-			hist.addPlotPoint(plotPoints.getLastPoint());
+		if (!plotPointsOutdated) {
+			plotPoints.add(valueToXPlot(x), valueToYPlot(y), label);
+			inside.add(isInside(plotPoints.getLastPoint()));
+
+			if (hist != null) {
+				hist.addPlotPoint(plotPoints.getLastPoint());
+			}
 		}
 	}
 
@@ -1921,11 +2305,14 @@ public class GLayer implements PConstants {
 	 */
 	public void addPoint(int index, float x, float y, String label) {
 		points.add(index, x, y, label);
-		plotPoints.add(index, valueToXPlot(x), valueToYPlot(y), label);
-		inside.add(index, isInside(plotPoints.getLastPoint()));
 
-		if (hist != null) {
-			hist.addPlotPoint(index, plotPoints.getLastPoint());
+		if (!plotPointsOutdated) {
+			plotPoints.add(index, valueToXPlot(x), valueToYPlot(y), label);
+			inside.add(index, isInside(plotPoints.get(index)));
+
+			if (hist != null) {
+				hist.addPlotPoint(index, plotPoints.get(index));
+			}
 		}
 	}
 
@@ -1956,13 +2343,18 @@ public class GLayer implements PConstants {
 	 * @param newPoints the points to add
 	 */
 	public void addPoints(GPointsArray newPoints) {
+
 		for (int i = 0; i < newPoints.getNPoints(); i++) {
 			points.add(newPoints.get(i));
-			plotPoints.add(valueToXPlot(newPoints.getX(i)), valueToYPlot(newPoints.getY(i)), newPoints.getLabel(i));
-			inside.add(isInside(plotPoints.getLastPoint()));
+
+			if (!plotPointsOutdated) {
+				plotPoints.add(valueToXPlot(newPoints.getX(i)), valueToYPlot(newPoints.getY(i)),
+						newPoints.getLabel(i));
+				inside.add(isInside(plotPoints.getLastPoint()));
+			}
 		}
 
-		if (hist != null) {
+		if (hist != null && !plotPointsOutdated) {
 			hist.setPlotPoints(plotPoints);
 		}
 	}
@@ -1974,11 +2366,14 @@ public class GLayer implements PConstants {
 	 */
 	public void removePoint(int index) {
 		points.remove(index);
-		plotPoints.remove(index);
-		inside.remove(index);
 
-		if (hist != null) {
-			hist.removePlotPoint(index);
+		if (!plotPointsOutdated) {
+			plotPoints.remove(index);
+			inside.remove(index);
+
+			if (hist != null) {
+				hist.removePlotPoint(index);
+			}
 		}
 	}
 
@@ -1988,10 +2383,31 @@ public class GLayer implements PConstants {
 	 * @param newInside a boolean array with the information whether a point is inside or not
 	 */
 	public void setInside(boolean[] newInside) {
+		validatePlotPoints();
+
 		if (newInside.length == inside.size()) {
 			for (int i = 0; i < inside.size(); i++) {
 				inside.set(i, newInside[i]);
 			}
+
+			// The filled contour and the label placement depend on which points are inside
+			contourPointsModCount = -1;
+			labelPlacementPointsModCount = -1;
+		}
+	}
+
+	/**
+	 * Sets if the projection of the points to the plot reference system should be deferred until a synchronous
+	 * drawing or query method needs it. It's used when the layer frames are prepared in a worker thread and during the
+	 * plot batch updates, so the limits changes don't project the points several times
+	 * 
+	 * @param deferred true if the projection should be deferred
+	 */
+	public void setDeferredProjection(boolean deferred) {
+		deferredProjection = deferred;
+
+		if (!deferred) {
+			validatePlotPoints();
 		}
 	}
 
@@ -2097,6 +2513,220 @@ public class GLayer implements PConstants {
 		}
 	}
 
+	/**
+	 * Enqueues a new point to be added to the layer the next time the pending points are drained. This method can be
+	 * called from any thread
+	 * 
+	 * @param x the new point x coordinate
+	 * @param y the new point y coordinate
+	 * @param label the new point label
+	 */
+	public void enqueuePoint(float x, float y, String label) {
+		pendingPoints.add(x, y, label);
+		notifyPendingPoints();
+	}
+
+	/**
+	 * Enqueues a new point to be added to the layer the next time the pending points are drained. This method can be
+	 * called from any thread
+	 * 
+	 * @param x the new point x coordinate
+	 * @param y the new point y coordinate
+	 */
+	public void enqueuePoint(float x, float y) {
+		enqueuePoint(x, y, "");
+	}
+
+	/**
+	 * Enqueues some new points to be added to the layer the next time the pending points are drained. The points are
+	 * copied, so the array can be reused by the caller. This method can be called from any thread
+	 * 
+	 * @param newPoints the points to add
+	 */
+	public void enqueuePoints(GPointsArray newPoints) {
+		pendingPoints.add(newPoints);
+		notifyPendingPoints();
+	}
+
+	/**
+	 * Checks if there are enqueued points waiting to be added to the layer
+	 * 
+	 * @return true if there are enqueued points
+	 */
+	public boolean hasPendingPoints() {
+		return pendingPoints.getNPoints() > 0;
+	}
+
+	/**
+	 * Adds all the enqueued points and the points buffered by the layer points sources to the layer in a single bulk
+	 * append. It should be called from the thread that draws the layer
+	 * 
+	 * @return true if some points were added
+	 */
+	public boolean drainPendingPoints() {
+		pendingPoints.consume(sourcePoints);
+
+		if (!pointsSources.isEmpty()) {
+			consumePointsSources(sourcePoints);
+		}
+
+		if (sourcePoints.getNPoints() == 0) {
+			return false;
+		}
+
+		addPoints(sourcePoints);
+
+		// The points were copied to the layer, so the reusable array can be emptied
+		sourcePoints.removeRange(0, sourcePoints.getNPoints());
+
+		return true;
+	}
+
+	/**
+	 * Moves the points buffered by the layer points sources to a given points array. The finished sources are removed
+	 * 
+	 * @param target the points array that will receive the buffered points
+	 */
+	protected void consumePointsSources(GPointsArray target) {
+		for (int i = pointsSources.size() - 1; i >= 0; i--) {
+			GPointsSource source = pointsSources.get(i);
+			source.consume(target);
+
+			if (source.isFinished()) {
+				pointsSources.remove(i);
+			}
+		}
+	}
+
+	/**
+	 * Adds a source that buffers points for the layer in other threads. Its buffered points are added to the layer at
+	 * the start of each frame. GLayerSubscriber.subscribe() uses it to subscribe the layer to a Flow.Publisher. It
+	 * should be called from the thread that draws the layer
+	 * 
+	 * @param source the points source
+	 */
+	public void addPointsSource(GPointsSource source) {
+		pointsSources.add(source);
+	}
+
+	/**
+	 * Cancels and removes all the layer points sources. It should be called from the thread that draws the layer
+	 */
+	public void cancelPointsSources() {
+		for (int i = 0; i < pointsSources.size(); i++) {
+			pointsSources.get(i).cancel();
+		}
+
+		pointsSources.clear();
+	}
+
+	/**
+	 * Returns an empty back buffer that a writer thread can fill with the next layer points and then publish with
+	 * publishPoints(). The buffer is recycled from a previous publication when possible. This method can be called from
+	 * any thread
+	 * 
+	 * @return an empty back buffer
+	 */
+	public GPointsArray obtainBackBuffer() {
+		GPointsArray backBuffer = recycledPoints.getAndSet(null);
+
+		if (backBuffer == null) {
+			backBuffer = new GPointsArray();
+		} else {
+			backBuffer.removeRange(0, backBuffer.getNPoints());
+		}
+
+		return backBuffer;
+	}
+
+	/**
+	 * Publishes a back buffer with the next layer points. The points will replace the layer points the next time the
+	 * published points are adopted, normally at the start of the next frame. The writer should not modify the buffer
+	 * after publishing it. If a previous publication was not adopted yet, it's discarded. This method can be called
+	 * from any thread
+	 * 
+	 * @param backBuffer the back buffer with the next layer points
+	 */
+	public void publishPoints(GPointsArray backBuffer) {
+		GPointsArray discarded = publishedPoints.getAndSet(backBuffer);
+
+		if (discarded != null) {
+			recycledPoints.set(discarded);
+		}
+
+		notifyPendingPoints();
+	}
+
+	/**
+	 * Notifies the plot that contains the layer that new points are waiting to be added. This method can be called
+	 * from any thread
+	 */
+	protected void notifyPendingPoints() {
+		GPlot owner = plot;
+
+		if (owner != null) {
+			owner.markDirty();
+		}
+	}
+
+	/**
+	 * Checks if the layer has points enqueued, published or buffered by a points source that were not added yet, or a
+	 * frame that is still being prepared
+	 * 
+	 * @return true if the layer has points or a frame waiting to be drawn
+	 */
+	protected boolean hasWaitingPoints() {
+		if (pendingPoints.getNPoints() > 0 || publishedPoints.get() != null) {
+			return true;
+		}
+
+		if (pendingFrame != null && !pendingFrame.isFinished()) {
+			return true;
+		}
+
+		for (int i = 0; i < pointsSources.size(); i++) {
+			if (pointsSources.get(i).getNBufferedPoints() > 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Calculates a signature of the layer state that changes every time the layer points or limits change
+	 * 
+	 * @return the layer state signature
+	 */
+	protected long calculateStateSignature() {
+		return 31L * (31L * points.getModCount() + limitsVersion) + System.identityHashCode(points);
+	}
+
+	/**
+	 * Replaces the layer points with the last published points, if any. The published buffer becomes the layer points
+	 * array without copying it, and the replaced array is recycled as the next back buffer. References previously
+	 * obtained with getPointsRef() should not be used after that. It should be called from the thread that draws the
+	 * layer, so the drawing methods always see a consistent set of points
+	 * 
+	 * @return true if the layer points were replaced
+	 */
+	public boolean adoptPublishedPoints() {
+		GPointsArray published = publishedPoints.getAndSet(null);
+
+		if (published == null) {
+			return false;
+		}
+
+		// Continue the modification count of the replaced points, so the caches that depend on it are updated
+		GPointsArray replaced = points;
+		published.modCount = replaced.modCount + 1;
+		points = published;
+		invalidatePlotPoints();
+		recycledPoints.set(replaced);
+
+		return true;
+	}
+
 	/**
 	 * Sets the label background color
 	 * 
@@ -2114,6 +2744,29 @@ public class GLayer implements PConstants {
 	public void setLabelSeparation(float[] newLabelSeparation) {
 		labelSeparation[0] = newLabelSeparation[0];
 		labelSeparation[1] = newLabelSeparation[1];
+		labelPlacementPointsModCount = -1;
+	}
+
+	/**
+	 * Returns the font used to draw the text. The cached font is only replaced when it was obtained from a different
+	 * thread, because the font objects can't be shared between threads
+	 * 
+	 * @return the font used to draw the text
+	 */
+	protected PFont obtainFont() {
+		if (font == null || fontThread != Thread.currentThread()) {
+			updateFont();
+		}
+
+		return font;
+	}
+
+	/**
+	 * Updates the cached font after a change in the font properties
+	 */
+	protected void updateFont() {
+		font = GFontRegistry.obtain(parent, fontName, fontSize);
+		fontThread = Thread.currentThread();
 	}
 
 	/**
@@ -2123,7 +2776,7 @@ public class GLayer implements PConstants {
 	 */
 	public void setFontName(String newFontName) {
 		fontName = newFontName;
-		font = parent.createFont(fontName, fontSize);
+		updateFont();
 	}
 
 	/**
@@ -2143,7 +2796,7 @@ public class GLayer implements PConstants {
 	public void setFontSize(int newFontSize) {
 		if (newFontSize > 0) {
 			fontSize = newFontSize;
-			font = parent.createFont(fontName, fontSize);
+			updateFont();
 		}
 	}
 
@@ -2159,7 +2812,7 @@ public class GLayer implements PConstants {
 			fontName = newFontName;
 			fontColor = newFontColor;
 			fontSize = newFontSize;
-			font = parent.createFont(fontName, fontSize);
+			updateFont();
 		}
 	}
 
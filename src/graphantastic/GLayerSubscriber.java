@@ -0,0 +1,353 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+import java.util.concurrent.Flow;
+import processing.core.PApplet;
+
+/**
+ * Layer subscriber class. It receives batches of points from a Flow.Publisher and keeps them in a bounded ring buffer
+ * until the layer consumes them at the start of the next frame. New batches are only requested when the layer consumes
+ * the previous ones, and the buffer overflows are resolved with one of the overflow policies, so the memory use stays
+ * bounded when the publisher is faster than the rendering. This is the only class of the library that uses the Java 9
+ * Flow API, and it's only loaded when a layer subscribes to a publisher, so the rest of the library still runs in Java
+ * 8.
+ * 
+ * @author ##author##
+ */
+public class GLayerSubscriber implements Flow.Subscriber<GPointsArray>, GPointsSource {
+	// The layer that receives the points
+	protected final GLayer layer;
+
+	// Flow control properties
+	protected final int capacity;
+	protected final int overflowPolicy;
+	protected final int prefetch;
+	protected volatile Flow.Subscription subscription;
+	protected volatile boolean completed;
+	protected volatile boolean cancelled;
+
+	// The ring buffer with the buffered points and the number of batches received since the last request. Guarded by
+	// the subscriber lock
+	protected final float[] bufferX;
+	protected final float[] bufferY;
+	protected final String[] bufferLabels;
+	protected int bufferStart;
+	protected int nBuffered;
+	protected int nReceived;
+	protected long nDropped;
+
+	// Overflow policies
+	public static final int DROP_OLDEST = 0;
+	public static final int DROP_NEWEST = 1;
+	public static final int DECIMATE = 2;
+	public static final int COALESCE = 3;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param layer the layer that will receive the points
+	 * @param capacity the maximum number of buffered points
+	 * @param overflowPolicy the policy used when the buffer overflows. It can be GLayerSubscriber.DROP_OLDEST,
+	 *            GLayerSubscriber.DROP_NEWEST, GLayerSubscriber.DECIMATE or GLayerSubscriber.COALESCE
+	 * @param prefetch the number of batches requested in advance
+	 */
+	public GLayerSubscriber(GLayer layer, int capacity, int overflowPolicy, int prefetch) {
+		this.layer = layer;
+		this.capacity = Math.max(1, capacity);
+		this.overflowPolicy = (overflowPolicy >= DROP_OLDEST && overflowPolicy <= COALESCE) ? overflowPolicy
+				: DROP_OLDEST;
+		this.prefetch = Math.max(1, prefetch);
+		subscription = null;
+		completed = false;
+		cancelled = false;
+		bufferX = new float[this.capacity];
+		bufferY = new float[this.capacity];
+		bufferLabels = new String[this.capacity];
+		bufferStart = 0;
+		nBuffered = 0;
+		nReceived = 0;
+		nDropped = 0;
+	}
+
+	/**
+	 * Subscribes a layer to a publisher of point batches. The received points are added to the layer at the start of
+	 * each frame, and new batches are only requested after the previous ones are consumed. It should be called from
+	 * the thread that draws the layer
+	 * 
+	 * @param layer the layer that will receive the points
+	 * @param publisher the points publisher
+	 * @param capacity the maximum number of points that can be buffered between two frames
+	 * @param overflowPolicy the policy used when the buffer overflows. It can be GLayerSubscriber.DROP_OLDEST,
+	 *            GLayerSubscriber.DROP_NEWEST, GLayerSubscriber.DECIMATE or GLayerSubscriber.COALESCE
+	 * 
+	 * @return the layer subscriber. It can be used to cancel the subscription
+	 */
+	public static GLayerSubscriber subscribe(GLayer layer, Flow.Publisher<GPointsArray> publisher, int capacity,
+			int overflowPolicy) {
+		GLayerSubscriber subscriber = new GLayerSubscriber(layer, capacity, overflowPolicy, 4);
+		layer.addPointsSource(subscriber);
+		publisher.subscribe(subscriber);
+
+		return subscriber;
+	}
+
+	/**
+	 * Stores the subscription and requests the first batches
+	 * 
+	 * @param newSubscription the subscription
+	 */
+	public void onSubscribe(Flow.Subscription newSubscription) {
+		if (subscription != null || cancelled) {
+			newSubscription.cancel();
+		} else {
+			subscription = newSubscription;
+			newSubscription.request(prefetch);
+		}
+	}
+
+	/**
+	 * Adds a batch of points to the buffer and notifies the plot that contains the layer
+	 * 
+	 * @param batch the batch of points
+	 */
+	public void onNext(GPointsArray batch) {
+		bufferBatch(batch);
+		layer.notifyPendingPoints();
+	}
+
+	/**
+	 * Adds a batch of points to the buffer, applying the overflow policy if it doesn't fit
+	 * 
+	 * @param batch the batch of points
+	 */
+	protected synchronized void bufferBatch(GPointsArray batch) {
+		nReceived++;
+		int nPoints = batch.getNPoints();
+
+		if (nBuffered + nPoints <= capacity || overflowPolicy == DROP_OLDEST) {
+			// The oldest points are overwritten when the buffer is full
+			for (int i = 0; i < nPoints; i++) {
+				if (nBuffered == capacity) {
+					bufferStart = (bufferStart + 1) % capacity;
+					nBuffered--;
+					nDropped++;
+				}
+
+				setBufferedPoint(nBuffered, batch.getX(i), batch.getY(i), batch.getLabel(i));
+				nBuffered++;
+			}
+		} else if (overflowPolicy == DROP_NEWEST) {
+			int nAccepted = capacity - nBuffered;
+
+			for (int i = 0; i < nAccepted; i++) {
+				setBufferedPoint(nBuffered, batch.getX(i), batch.getY(i), batch.getLabel(i));
+				nBuffered++;
+			}
+
+			nDropped += nPoints - nAccepted;
+		} else if (overflowPolicy == COALESCE) {
+			if (nPoints > 0) {
+				nDropped += nBuffered + nPoints - 1;
+				clearBuffer();
+				setBufferedPoint(0, batch.getX(nPoints - 1), batch.getY(nPoints - 1), batch.getLabel(nPoints - 1));
+				nBuffered = 1;
+			}
+		} else {
+			decimateBuffer(batch);
+		}
+	}
+
+	/**
+	 * Reduces the buffered points and the points of a new batch to the buffer capacity, keeping points at regular
+	 * intervals. The newest point is always kept. The selected points are compacted in place, because each of them is
+	 * read before its position in the buffer is overwritten
+	 * 
+	 * @param batch the new batch of points
+	 */
+	protected void decimateBuffer(GPointsArray batch) {
+		int nTotal = nBuffered + batch.getNPoints();
+		int step = (nTotal + capacity - 1) / capacity;
+		int nKept = 0;
+
+		for (int i = (nTotal - 1) % step; i < nTotal; i += step) {
+			if (i < nBuffered) {
+				int index = (bufferStart + i) % capacity;
+				setBufferedPoint(nKept, bufferX[index], bufferY[index], bufferLabels[index]);
+			} else {
+				int j = i - nBuffered;
+				setBufferedPoint(nKept, batch.getX(j), batch.getY(j), batch.getLabel(j));
+			}
+
+			nKept++;
+		}
+
+		// Release the labels of the discarded points
+		for (int k = nKept; k < Math.min(nBuffered, capacity); k++) {
+			bufferLabels[(bufferStart + k) % capacity] = null;
+		}
+
+		nDropped += nTotal - nKept;
+		nBuffered = nKept;
+	}
+
+	/**
+	 * Sets one of the buffered points
+	 * 
+	 * @param position the point position, counted from the oldest buffered point
+	 * @param x the point x coordinate
+	 * @param y the point y coordinate
+	 * @param label the point label
+	 */
+	protected void setBufferedPoint(int position, float x, float y, String label) {
+		int index = (bufferStart + position) % capacity;
+		bufferX[index] = x;
+		bufferY[index] = y;
+		bufferLabels[index] = label;
+	}
+
+	/**
+	 * Empties the buffer, releasing the buffered labels
+	 */
+	protected void clearBuffer() {
+		for (int k = 0; k < nBuffered; k++) {
+			bufferLabels[(bufferStart + k) % capacity] = null;
+		}
+
+		bufferStart = 0;
+		nBuffered = 0;
+	}
+
+	/**
+	 * Reports the publisher error and stops receiving points
+	 * 
+	 * @param throwable the publisher error
+	 */
+	public void onError(Throwable throwable) {
+		PApplet.println("The points publisher of the layer " + layer.getId() + " failed: " + throwable.getMessage());
+		completed = true;
+	}
+
+	/**
+	 * Marks the subscription as completed
+	 */
+	public void onComplete() {
+		completed = true;
+	}
+
+	/**
+	 * Moves the buffered points to a given points array and requests as many new batches as were received since the
+	 * last call. It should be called from the thread that draws the layer
+	 * 
+	 * @param target the points array that will receive the buffered points
+	 * 
+	 * @return the number of moved points
+	 */
+	public int consume(GPointsArray target) {
+		int nMoved;
+		int nRequested;
+
+		synchronized (this) {
+			nMoved = nBuffered;
+
+			for (int k = 0; k < nBuffered; k++) {
+				int index = (bufferStart + k) % capacity;
+				target.add(bufferX[index], bufferY[index], bufferLabels[index]);
+			}
+
+			clearBuffer();
+			nRequested = nReceived;
+			nReceived = 0;
+		}
+
+		Flow.Subscription s = subscription;
+
+		if (nRequested > 0 && s != null && !completed && !cancelled) {
+			s.request(nRequested);
+		}
+
+		return nMoved;
+	}
+
+	/**
+	 * Cancels the subscription. The points that are already buffered will still be consumed
+	 */
+	public void cancel() {
+		cancelled = true;
+		Flow.Subscription s = subscription;
+
+		if (s != null) {
+			s.cancel();
+		}
+	}
+
+	/**
+	 * Checks if the subscription is finished and all the buffered points were consumed
+	 * 
+	 * @return true if the subscription is finished
+	 */
+	public synchronized boolean isFinished() {
+		return (completed || cancelled) && nBuffered == 0;
+	}
+
+	/**
+	 * Returns the number of buffered points
+	 * 
+	 * @return the number of buffered points
+	 */
+	public synchronized int getNBufferedPoints() {
+		return nBuffered;
+	}
+
+	/**
+	 * Returns the number of points dropped by the overflow policy
+	 * 
+	 * @return the number of dropped points
+	 */
+	public synchronized long getNDroppedPoints() {
+		return nDropped;
+	}
+
+	/**
+	 * Returns the buffer capacity
+	 * 
+	 * @return the maximum number of buffered points
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the overflow policy
+	 * 
+	 * @return the overflow policy
+	 */
+	public int getOverflowPolicy() {
+		return overflowPolicy;
+	}
+}
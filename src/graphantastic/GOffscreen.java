@@ -0,0 +1,134 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+import processing.core.PApplet;
+import processing.core.PGraphics;
+
+/**
+ * Offscreen canvas class. It contains an offscreen Java2D graphics and an applet that is never run and whose drawing
+ * methods go to that graphics. Plots created with the canvas applet as parent draw into the canvas, so several plots
+ * can be drawn at the same time from different threads as long as each one uses its own canvas. The applet ignores the
+ * method registrations, like the pre() and mouseEvent() methods that the plots register, because it never calls them.
+ * The owner of the canvas should call the plot pre() method and forward the mouse events if it needs them.
+ * 
+ * @author ##author##
+ */
+public class GOffscreen {
+	// The canvas applet and graphics
+	protected final PApplet applet;
+	protected final PGraphics graphics;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param width the canvas width in pixels
+	 * @param height the canvas height in pixels
+	 */
+	public GOffscreen(int width, int height) {
+		applet = new PApplet() {
+			public void registerMethod(String methodName, Object target) {
+				// The applet is never run, so the registered methods would never be called
+			}
+		};
+		graphics = applet.createGraphics(width, height, PApplet.JAVA2D);
+
+		// Save the images in the calling thread, so save() reports if they were really written
+		graphics.hint(PApplet.DISABLE_ASYNC_SAVEFRAME);
+		applet.g = graphics;
+		applet.width = width;
+		applet.height = height;
+	}
+
+	/**
+	 * Prepares the canvas for drawing. It should be called before the canvas plots are drawn
+	 */
+	public void beginDraw() {
+		graphics.beginDraw();
+	}
+
+	/**
+	 * Finishes the canvas drawing. It should be called after the canvas plots are drawn
+	 */
+	public void endDraw() {
+		graphics.endDraw();
+	}
+
+	/**
+	 * Clears the canvas and draws a plot in it
+	 * 
+	 * @param plot the plot to draw. It should be created with the canvas applet as parent
+	 * @param renderer the renderer that draws the plot
+	 */
+	public void draw(GPlot plot, GPlotRenderer renderer) {
+		graphics.beginDraw();
+
+		try {
+			graphics.clear();
+			renderer.draw(plot);
+		} finally {
+			graphics.endDraw();
+		}
+	}
+
+	/**
+	 * Returns the applet that should be used as parent of the canvas plots
+	 * 
+	 * @return the canvas applet
+	 */
+	public PApplet getApplet() {
+		return applet;
+	}
+
+	/**
+	 * Returns the canvas graphics
+	 * 
+	 * @return the canvas graphics
+	 */
+	public PGraphics getGraphics() {
+		return graphics;
+	}
+
+	/**
+	 * Returns the canvas width
+	 * 
+	 * @return the canvas width in pixels
+	 */
+	public int getWidth() {
+		return graphics.width;
+	}
+
+	/**
+	 * Returns the canvas height
+	 * 
+	 * @return the canvas height in pixels
+	 */
+	public int getHeight() {
+		return graphics.height;
+	}
+}
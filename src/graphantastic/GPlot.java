@@ -28,6 +28,12 @@
 package graphantastic;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import processing.core.PApplet;
 import processing.core.PConstants;
 import processing.core.PImage;
@@ -58,6 +64,8 @@ public class GPlot implements PConstants {
 	protected boolean invertedYScale;
 	protected boolean includeAllLayersInLim;
 	protected float expandLimFactor;
+	protected final float[] limBuffer;
+	protected final boolean pointsLimOverridden;
 
 	// Format properties
 	protected int bgColor;
@@ -71,6 +79,28 @@ public class GPlot implements PConstants {
 	protected final GLayer mainLayer;
 	protected final ArrayList<GLayer> layerList;
 
+	// Layer index. Every layer gets a handle when it's added to the plot. The handles are not reused after a layer is
+	// removed, and the handle of the main layer is always 0
+	protected final HashMap<String, Integer> layerHandles;
+	protected final ArrayList<GLayer> handleLayers;
+
+	// Frame preparation pipeline. It's null if the frames are prepared in the animation thread
+	protected GFramePipeline framePipeline;
+
+	// Batch updates. The limits, the axes and the layers projection are not updated until the outermost batch ends
+	protected int updateDepth;
+	protected boolean limitsUpdatePending;
+	protected boolean xAxesUpdatePending;
+	protected boolean yAxesUpdatePending;
+	protected boolean xAxesMovePending;
+	protected boolean yAxesMovePending;
+
+	// Redraw state. The plot is dirty if it changed since it was last drawn, and the listener is notified when the plot
+	// becomes dirty
+	protected volatile boolean dirty;
+	protected long cleanSignature;
+	protected volatile GRedrawListener redrawListener;
+
 	// Axes and title
 	protected final GAxis xAxis;
 	protected final GAxis topAxis;
@@ -89,6 +119,8 @@ public class GPlot implements PConstants {
 	public static final int METAMOD = MouseEvent.META;
 	public static final int SHIFTMOD = MouseEvent.SHIFT;
 	public static final float LOG10 = (float) Math.log(10);
+	public static final int PARALLEL_LIM_MIN_POINTS = 1 << 16;
+	public static final int PARALLEL_LIM_CHUNK_SIZE = 1 << 15;
 
 	// Mouse events
 	protected boolean zoomingIsActive;
@@ -104,15 +136,28 @@ public class GPlot implements PConstants {
 	protected int panningButton;
 	protected int panningKeyModifier;
 	protected float[] panningReferencePoint;
+	protected final float[] panningReferenceBuffer;
 	protected boolean labelingIsActive;
 	protected int labelingButton;
 	protected int labelingKeyModifier;
 	protected float[] mousePos;
+	protected final float[] mousePosBuffer;
 	protected boolean resetIsActive;
 	protected int resetButton;
 	protected int resetKeyModifier;
 	protected float[] xLimReset;
 	protected float[] yLimReset;
+	protected final float[] xLimResetBuffer;
+	protected final float[] yLimResetBuffer;
+
+	// Pending interactions. Consecutive zooms and pans are accumulated and applied once per frame
+	protected int pendingInteraction;
+	protected float pendingXZoomFactor;
+	protected float pendingYZoomFactor;
+	protected final float[] pendingMousePos;
+	protected final float[] pendingPanningValue;
+	protected static final int ZOOM_INTERACTION = 1;
+	protected static final int PAN_INTERACTION = 2;
 
 	/**
 	 * GPlot constructor
@@ -140,6 +185,8 @@ public class GPlot implements PConstants {
 		invertedYScale = false;
 		includeAllLayersInLim = true;
 		expandLimFactor = 0.1f;
+		limBuffer = new float[2];
+		pointsLimOverridden = isPointsLimOverridden();
 
 		bgColor = this.parent.color(255);
 		boxBgColor = this.parent.color(245);
@@ -150,6 +197,19 @@ public class GPlot implements PConstants {
 
 		mainLayer = new GLayer(this.parent, MAINLAYERID, dim, xLim, yLim, xLog, yLog);
 		layerList = new ArrayList<GLayer>();
+		layerHandles = new HashMap<String, Integer>();
+		handleLayers = new ArrayList<GLayer>();
+		indexLayer(mainLayer);
+		framePipeline = null;
+		updateDepth = 0;
+		limitsUpdatePending = false;
+		xAxesUpdatePending = false;
+		yAxesUpdatePending = false;
+		xAxesMovePending = false;
+		yAxesMovePending = false;
+		dirty = true;
+		cleanSignature = 0;
+		redrawListener = null;
 
 		xAxis = new GAxis(this.parent, X, dim, xLim, xLog);
 		topAxis = new GAxis(this.parent, TOP, dim, xLim, xLog);
@@ -159,6 +219,7 @@ public class GPlot implements PConstants {
 
 		// Setup for the mouse events
 		this.parent.registerMethod("mouseEvent", this);
+		this.parent.registerMethod("pre", this);
 		zoomingIsActive = false;
 		zoomFactor = 1.3f;
 		increaseZoomButton = LEFT;
@@ -172,15 +233,24 @@ public class GPlot implements PConstants {
 		panningButton = LEFT;
 		panningKeyModifier = NONE;
 		panningReferencePoint = null;
+		panningReferenceBuffer = new float[2];
 		labelingIsActive = false;
 		labelingButton = LEFT;
 		labelingKeyModifier = NONE;
 		mousePos = null;
+		mousePosBuffer = new float[2];
 		resetIsActive = false;
 		resetButton = RIGHT;
 		resetKeyModifier = CTRLMOD;
 		xLimReset = null;
 		yLimReset = null;
+		xLimResetBuffer = new float[2];
+		yLimResetBuffer = new float[2];
+		pendingInteraction = NONE;
+		pendingXZoomFactor = 1;
+		pendingYZoomFactor = 1;
+		pendingMousePos = new float[2];
+		pendingPanningValue = new float[2];
 	}
 
 	/**
@@ -211,24 +281,14 @@ public class GPlot implements PConstants {
 	public void addLayer(GLayer newLayer) {
 		// Check that it is the only layer with that id
 		String id = newLayer.getId();
-		boolean sameId = false;
-
-		if (mainLayer.isId(id)) {
-			sameId = true;
-		} else {
-			for (int i = 0; i < layerList.size(); i++) {
-				if (layerList.get(i).isId(id)) {
-					sameId = true;
-					break;
-				}
-			}
-		}
+		boolean sameId = layerHandles.containsKey(id);
 
 		// Add the layer to the list
 		if (!sameId) {
 			newLayer.setDim(dim);
 			newLayer.setLimAndLog(xLim, yLim, xLog, yLog);
 			layerList.add(newLayer);
+			indexLayer(newLayer);
 
 			// Calculate and update the new plot limits if necessary
 			if (includeAllLayersInLim) {
@@ -247,24 +307,14 @@ public class GPlot implements PConstants {
 	 */
 	public void addLayer(String id, GPointsArray points) {
 		// Check that it is the only layer with that id
-		boolean sameId = false;
-
-		if (mainLayer.isId(id)) {
-			sameId = true;
-		} else {
-			for (int i = 0; i < layerList.size(); i++) {
-				if (layerList.get(i).isId(id)) {
-					sameId = true;
-					break;
-				}
-			}
-		}
+		boolean sameId = layerHandles.containsKey(id);
 
 		// Add the layer to the list
 		if (!sameId) {
 			GLayer newLayer = new GLayer(parent, id, dim, xLim, yLim, xLog, yLog);
 			newLayer.setPoints(points);
 			layerList.add(newLayer);
+			indexLayer(newLayer);
 
 			// Calculate and update the new plot limits if necessary
 			if (includeAllLayersInLim) {
@@ -281,17 +331,16 @@ public class GPlot implements PConstants {
 	 * @param id the id of the layer to remove
 	 */
 	public void removeLayer(String id) {
-		int index = -1;
+		Integer handle = layerHandles.get(id);
 
-		for (int i = 0; i < layerList.size(); i++) {
-			if (layerList.get(i).isId(id)) {
-				index = i;
-				break;
-			}
-		}
-
-		if (index >= 0) {
-			layerList.remove(index);
+		if (handle != null && handle != 0) {
+			GLayer layer = handleLayers.get(handle);
+			layerList.remove(layer);
+			handleLayers.set(handle, null);
+			layerHandles.remove(id);
+			layer.plot = null;
+			layer.setDeferredProjection(false);
+			markDirty();
 
 			// Calculate and update the new plot limits if necessary
 			if (includeAllLayersInLim) {
@@ -302,6 +351,18 @@ public class GPlot implements PConstants {
 		}
 	}
 
+	/**
+	 * Adds a layer to the layer index, giving it a new handle
+	 * 
+	 * @param layer the layer to index
+	 */
+	protected void indexLayer(GLayer layer) {
+		layerHandles.put(layer.getId(), handleLayers.size());
+		handleLayers.add(layer);
+		layer.plot = this;
+		layer.setDeferredProjection(framePipeline != null || updateDepth > 0);
+	}
+
 	/**
 	 * Calculates the position of a point in the screen, relative to the plot reference system
 	 * 
@@ -361,12 +422,11 @@ public class GPlot implements PConstants {
 		if (mainLayer.isId(layerId)) {
 			p = getPointAt(xScreen, yScreen);
 		} else {
-			for (int i = 0; i < layerList.size(); i++) {
-				if (layerList.get(i).isId(layerId)) {
-					float[] plotPos = getPlotPosAt(xScreen, yScreen);
-					p = layerList.get(i).getPointAtPlotPos(plotPos[0], plotPos[1]);
-					break;
-				}
+			Integer handle = layerHandles.get(layerId);
+
+			if (handle != null) {
+				float[] plotPos = getPlotPosAt(xScreen, yScreen);
+				p = handleLayers.get(handle).getPointAtPlotPos(plotPos[0], plotPos[1]);
 			}
 		}
 
@@ -482,20 +542,40 @@ public class GPlot implements PConstants {
 	}
 
 	/**
-	 * Calculates and updates the plot x and y limits
+	 * Calculates and updates the plot x and y limits. Inside a batch update, the calculation is deferred until the
+	 * batch ends, and the layers only receive the current plot limits
 	 */
 	public void updateLimits() {
+		markDirty();
+
+		if (updateDepth > 0) {
+			limitsUpdatePending = true;
+
+			// Keep the layers consistent with the plot limits. Their points are projected when the batch ends
+			mainLayer.setXYLim(xLim, yLim);
+
+			for (int i = 0; i < layerList.size(); i++) {
+				layerList.get(i).setXYLim(xLim, yLim);
+			}
+
+			return;
+		}
+
+		limitsUpdatePending = false;
+
 		// Calculate the new limits and update the axes if needed
 		if (!fixedXLim) {
-			xLim = calculatePlotXLim();
-			xAxis.setLim(xLim);
-			topAxis.setLim(xLim);
+			calculatePlotLim(true, limBuffer);
+			xLim[0] = limBuffer[0];
+			xLim[1] = limBuffer[1];
+			updateXAxesLim();
 		}
 
 		if (!fixedYLim) {
-			yLim = calculatePlotYLim();
-			yAxis.setLim(yLim);
-			rightAxis.setLim(yLim);
+			calculatePlotLim(false, limBuffer);
+			yLim[0] = limBuffer[0];
+			yLim[1] = limBuffer[1];
+			updateYAxesLim();
 		}
 
 		// Update the layers
@@ -507,35 +587,279 @@ public class GPlot implements PConstants {
 	}
 
 	/**
-	 * Calculates the plot x limits
-	 * 
-	 * @return the x limits
+	 * Updates the limits and the scale of the horizontal axes. Inside a batch update, the axes are only updated when
+	 * the batch ends
 	 */
-	protected float[] calculatePlotXLim() {
-		// Find the limits for the main layer
-		float[] lim = calculatePointsXLim(mainLayer.getPointsRef());
+	protected void updateXAxesLim() {
+		if (updateDepth > 0) {
+			xAxesUpdatePending = true;
+		} else {
+			xAxesUpdatePending = false;
+			xAxesMovePending = false;
+			xAxis.setLimAndLog(xLim, xLog);
+			topAxis.setLimAndLog(xLim, xLog);
+		}
+	}
 
-		// Include the other layers in the limit calculation if necessary
-		if (includeAllLayersInLim) {
-			for (int i = 0; i < layerList.size(); i++) {
-				float[] newLim = calculatePointsXLim(layerList.get(i).getPointsRef());
-
-				if (newLim != null) {
-					if (lim != null) {
-						lim[0] = PApplet.min(lim[0], newLim[0]);
-						lim[1] = PApplet.max(lim[1], newLim[1]);
-					} else {
-						lim = newLim;
-					}
+	/**
+	 * Updates the limits and the scale of the vertical axes. Inside a batch update, the axes are only updated when the
+	 * batch ends
+	 */
+	protected void updateYAxesLim() {
+		if (updateDepth > 0) {
+			yAxesUpdatePending = true;
+		} else {
+			yAxesUpdatePending = false;
+			yAxesMovePending = false;
+			yAxis.setLimAndLog(yLim, yLog);
+			rightAxis.setLimAndLog(yLim, yLog);
+		}
+	}
+
+	/**
+	 * Moves the limits of the horizontal axes, keeping the ticks separation. Inside a batch update, the axes are only
+	 * moved when the batch ends
+	 */
+	protected void moveXAxesLim() {
+		if (updateDepth > 0) {
+			xAxesMovePending = true;
+		} else {
+			xAxesMovePending = false;
+			xAxis.moveLim(xLim);
+			topAxis.moveLim(xLim);
+		}
+	}
+
+	/**
+	 * Moves the limits of the vertical axes, keeping the ticks separation. Inside a batch update, the axes are only
+	 * moved when the batch ends
+	 */
+	protected void moveYAxesLim() {
+		if (updateDepth > 0) {
+			yAxesMovePending = true;
+		} else {
+			yAxesMovePending = false;
+			yAxis.moveLim(yLim);
+			rightAxis.moveLim(yLim);
+		}
+	}
+
+	/**
+	 * Sets if the layers should defer the projection of their points. The projection is deferred while a frame
+	 * pipeline is set or a batch update is in progress. When it stops being deferred, the outdated layer points are
+	 * projected
+	 */
+	protected void updateLayersProjection() {
+		boolean deferred = framePipeline != null || updateDepth > 0;
+		mainLayer.setDeferredProjection(deferred);
+
+		for (int i = 0; i < layerList.size(); i++) {
+			layerList.get(i).setDeferredProjection(deferred);
+		}
+	}
+
+	/**
+	 * Starts a batch update. The limits calculation, the axes ticks update and the layers reprojection that the plot
+	 * modifications would trigger are deferred until the matching endUpdate() call. Batch updates can be nested
+	 */
+	public void beginUpdate() {
+		updateDepth++;
+
+		if (updateDepth == 1) {
+			updateLayersProjection();
+		}
+	}
+
+	/**
+	 * Ends a batch update. If it's the outermost batch and the plot was modified, the limits and the axes are updated
+	 * and the layer points are projected only once
+	 */
+	public void endUpdate() {
+		if (updateDepth > 0) {
+			updateDepth--;
+
+			if (updateDepth == 0) {
+				if (limitsUpdatePending) {
+					updateLimits();
+				}
+
+				if (xAxesUpdatePending) {
+					updateXAxesLim();
+				} else if (xAxesMovePending) {
+					moveXAxesLim();
+				}
+
+				if (yAxesUpdatePending) {
+					updateYAxesLim();
+				} else if (yAxesMovePending) {
+					moveYAxesLim();
 				}
+
+				updateLayersProjection();
+			}
+		}
+	}
+
+	/**
+	 * Runs a set of plot modifications as a single batch update
+	 * 
+	 * @param modifications the plot modifications
+	 */
+	public void update(Runnable modifications) {
+		beginUpdate();
+
+		try {
+			modifications.run();
+		} finally {
+			endUpdate();
+		}
+	}
+
+	/**
+	 * Checks if a batch update is in progress
+	 * 
+	 * @return true if a batch update is in progress
+	 */
+	public boolean isUpdating() {
+		return updateDepth > 0;
+	}
+
+	/**
+	 * Marks the plot as dirty, so it will be drawn again. The redraw listener is notified if the plot was not dirty
+	 * before. Use this method after modifying the plot layers, axes or title directly. It can be called from any thread
+	 */
+	public void markDirty() {
+		if (!dirty) {
+			dirty = true;
+			GRedrawListener listener = redrawListener;
+
+			if (listener != null) {
+				listener.redrawNeeded(this);
 			}
 		}
+	}
+
+	/**
+	 * Marks the plot as clean, saving the current state of its points and limits. The plot becomes dirty again
+	 * immediately if some layer has points waiting to be added or a frame that is still being prepared
+	 */
+	protected void markClean() {
+		cleanSignature = calculateStateSignature();
+		dirty = false;
+
+		// Notify the listener again if necessary, because the frame that it requested could be the current one
+		if (hasWaitingPoints()) {
+			markDirty();
+		}
+	}
+
+	/**
+	 * Checks if the plot changed since it was last drawn. Changes in the points and limits of the layers are detected
+	 * even if they were made directly on the layers
+	 * 
+	 * @return true if the plot needs to be drawn again
+	 */
+	public boolean isDirty() {
+		if (!dirty && calculateStateSignature() != cleanSignature) {
+			markDirty();
+		}
+
+		return dirty;
+	}
+
+	/**
+	 * Checks if the plot needs to be drawn again. Equivalent to isDirty()
+	 * 
+	 * @return true if the plot needs to be drawn again
+	 */
+	public boolean needsRedraw() {
+		return isDirty();
+	}
+
+	/**
+	 * Checks if some plot layer has points enqueued, published or buffered by a points source that were not added to
+	 * the layer yet, or a frame that is still being prepared
+	 * 
+	 * @return true if some layer has points or a frame waiting to be drawn
+	 */
+	protected boolean hasWaitingPoints() {
+		if (mainLayer.hasWaitingPoints()) {
+			return true;
+		}
 
-		if (lim != null) {
+		for (int i = 0; i < layerList.size(); i++) {
+			if (layerList.get(i).hasWaitingPoints()) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Calculates a signature of the plot state that changes every time the plot points, limits, position or
+	 * dimensions change
+	 * 
+	 * @return the plot state signature
+	 */
+	protected long calculateStateSignature() {
+		long signature = 17;
+		signature = 31 * signature + mainLayer.calculateStateSignature();
+
+		for (int i = 0; i < layerList.size(); i++) {
+			signature = 31 * signature + layerList.get(i).calculateStateSignature();
+		}
+
+		signature = 31 * signature + Arrays.hashCode(pos);
+		signature = 31 * signature + Arrays.hashCode(outerDim);
+		signature = 31 * signature + Arrays.hashCode(mar);
+		signature = 31 * signature + Arrays.hashCode(xLim);
+		signature = 31 * signature + Arrays.hashCode(yLim);
+
+		return signature;
+	}
+
+	/**
+	 * Calculates the plot x limits
+	 * 
+	 * @return the plot x limits
+	 */
+	protected float[] calculatePlotXLim() {
+		float[] lim = new float[2];
+		calculatePlotLim(true, lim);
+
+		return lim;
+	}
+
+	/**
+	 * Calculates the plot y limits
+	 * 
+	 * @return the plot y limits
+	 */
+	protected float[] calculatePlotYLim() {
+		float[] lim = new float[2];
+		calculatePlotLim(false, lim);
+
+		return lim;
+	}
+
+	/**
+	 * Calculates the plot x or y limits without allocating any memory, unless the limits are calculated in parallel or
+	 * with overridden calculatePointsXLim() or calculatePointsYLim() methods
+	 * 
+	 * @param xAxisLim true to calculate the x limits, false to calculate the y limits
+	 * @param lim the array where the limits will be stored
+	 */
+	protected void calculatePlotLim(boolean xAxisLim, float[] lim) {
+		boolean log = xAxisLim ? xLog : yLog;
+		float[] currentLim = xAxisLim ? xLim : yLim;
+
+		// Find the limits for the main layer, and the other layers if necessary
+		if (calculateLayersLim(xAxisLim, lim)) {
 			// Expand the axis limits a bit
 			float delta = (lim[0] == 0) ? 0.1f : 0.1f * lim[0];
 
-			if (xLog) {
+			if (log) {
 				if (lim[0] != lim[1]) {
 					delta = PApplet.exp(expandLimFactor * PApplet.log(lim[1] / lim[0]));
 				}
@@ -551,94 +875,195 @@ public class GPlot implements PConstants {
 				lim[1] = lim[1] + delta;
 			}
 		} else {
-			if (xLog && (xLim[0] <= 0 || xLim[1] <= 0)) {
-				lim = new float[] { 0.1f, 10 };
+			if (log && (currentLim[0] <= 0 || currentLim[1] <= 0)) {
+				lim[0] = 0.1f;
+				lim[1] = 10;
 			} else {
-				lim = xLim;
+				lim[0] = currentLim[0];
+				lim[1] = currentLim[1];
 			}
 		}
 
 		// Invert the limits if necessary
-		if (invertedXScale && lim[0] < lim[1]) {
-			lim = new float[] { lim[1], lim[0] };
+		if ((xAxisLim ? invertedXScale : invertedYScale) && lim[0] < lim[1]) {
+			float tmp = lim[0];
+			lim[0] = lim[1];
+			lim[1] = tmp;
 		}
+	}
 
-		return lim;
+	/**
+	 * Checks if the class of the plot overrides calculatePointsXLim() or calculatePointsYLim()
+	 * 
+	 * @return true if any of the points limits methods is overridden
+	 */
+	protected boolean isPointsLimOverridden() {
+		try {
+			Class<?> xLimClass = getClass().getMethod("calculatePointsXLim", GPointsArray.class).getDeclaringClass();
+			Class<?> yLimClass = getClass().getMethod("calculatePointsYLim", GPointsArray.class).getDeclaringClass();
+
+			return xLimClass != GPlot.class || yLimClass != GPlot.class;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
 	}
 
 	/**
-	 * Calculates the plot y limits
+	 * Calculates the limits of the main layer points, and of the other layers points if all the layers should be
+	 * considered. If calculatePointsXLim() or calculatePointsYLim() are overridden, the limits of each layer are
+	 * calculated with them. Otherwise, large sets of points are split in chunks that are processed in parallel with
+	 * accumulatePointsXLim() and accumulatePointsYLim(), and merged at the end. The calling thread waits until all the
+	 * chunks are processed, because the limits are used right after, so the parallel calculation only shortens the wait
+	 * and doesn't move it out of the animation thread
 	 * 
-	 * @return the y limits
+	 * @param xAxisLim true to calculate the x limits, false to calculate the y limits
+	 * @param lim the array where the limits will be stored
+	 * 
+	 * @return false if none of the points can be used
 	 */
-	protected float[] calculatePlotYLim() {
-		// Find the limits for the main layer
-		float[] lim = calculatePointsYLim(mainLayer.getPointsRef());
+	protected boolean calculateLayersLim(final boolean xAxisLim, float[] lim) {
+		if (pointsLimOverridden) {
+			return calculateLayersLimSerially(xAxisLim, lim);
+		}
+
+		int nPoints = mainLayer.getPointsRef().getNPoints();
 
-		// Include the other layers in the limit calculation if necessary
 		if (includeAllLayersInLim) {
 			for (int i = 0; i < layerList.size(); i++) {
-				float[] newLim = calculatePointsYLim(layerList.get(i).getPointsRef());
-
-				if (newLim != null) {
-					if (lim != null) {
-						lim[0] = PApplet.min(lim[0], newLim[0]);
-						lim[1] = PApplet.max(lim[1], newLim[1]);
-					} else {
-						lim = newLim;
-					}
-				}
+				nPoints += layerList.get(i).getPointsRef().getNPoints();
 			}
 		}
 
-		if (lim != null) {
-			// Expand the axis limits a bit
-			float delta = (lim[0] == 0) ? 0.1f : 0.1f * lim[0];
+		lim[0] = Float.MAX_VALUE;
+		lim[1] = -Float.MAX_VALUE;
 
-			if (yLog) {
-				if (lim[0] != lim[1]) {
-					delta = PApplet.exp(expandLimFactor * PApplet.log(lim[1] / lim[0]));
+		if (nPoints >= PARALLEL_LIM_MIN_POINTS && Runtime.getRuntime().availableProcessors() > 1) {
+			// Split the points in chunks and calculate their limits in parallel
+			ArrayList<Callable<float[]>> tasks = new ArrayList<Callable<float[]>>();
+			int nLayers = includeAllLayersInLim ? layerList.size() + 1 : 1;
+
+			for (int i = 0; i < nLayers; i++) {
+				final GPointsArray points = (i == 0) ? mainLayer.getPointsRef() : layerList.get(i - 1).getPointsRef();
+
+				for (int from = 0; from < points.getNPoints(); from += PARALLEL_LIM_CHUNK_SIZE) {
+					final int start = from;
+					final int end = Math.min(from + PARALLEL_LIM_CHUNK_SIZE, points.getNPoints());
+
+					tasks.add(new Callable<float[]>() {
+						public float[] call() {
+							float[] chunkLim = new float[] { Float.MAX_VALUE, -Float.MAX_VALUE };
+
+							if (xAxisLim) {
+								accumulatePointsXLim(points, start, end, chunkLim);
+							} else {
+								accumulatePointsYLim(points, start, end, chunkLim);
+							}
+
+							return chunkLim;
+						}
+					});
 				}
+			}
 
-				lim[0] = lim[0] / delta;
-				lim[1] = lim[1] * delta;
-			} else {
-				if (lim[0] != lim[1]) {
-					delta = expandLimFactor * (lim[1] - lim[0]);
+			try {
+				for (Future<float[]> result : ForkJoinPool.commonPool().invokeAll(tasks)) {
+					float[] chunkLim = result.get();
+					lim[0] = PApplet.min(lim[0], chunkLim[0]);
+					lim[1] = PApplet.max(lim[1], chunkLim[1]);
 				}
 
-				lim[0] = lim[0] - delta;
-				lim[1] = lim[1] + delta;
+				return lim[1] >= lim[0];
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				PApplet.println("The parallel limits calculation failed: " + e.getCause());
 			}
+
+			lim[0] = Float.MAX_VALUE;
+			lim[1] = -Float.MAX_VALUE;
+		}
+
+		GPointsArray points = mainLayer.getPointsRef();
+
+		if (xAxisLim) {
+			accumulatePointsXLim(points, 0, points.getNPoints(), lim);
 		} else {
-			if (yLog && (yLim[0] <= 0 || yLim[1] <= 0)) {
-				lim = new float[] { 0.1f, 10 };
-			} else {
-				lim = yLim;
+			accumulatePointsYLim(points, 0, points.getNPoints(), lim);
+		}
+
+		if (includeAllLayersInLim) {
+			for (int i = 0; i < layerList.size(); i++) {
+				points = layerList.get(i).getPointsRef();
+
+				if (xAxisLim) {
+					accumulatePointsXLim(points, 0, points.getNPoints(), lim);
+				} else {
+					accumulatePointsYLim(points, 0, points.getNPoints(), lim);
+				}
 			}
 		}
 
-		// Invert the limits if necessary
-		if (invertedYScale && lim[0] < lim[1]) {
-			lim = new float[] { lim[1], lim[0] };
+		return lim[1] >= lim[0];
+	}
+
+	/**
+	 * Calculates the limits of the main layer points, and of the other layers points if all the layers should be
+	 * considered, using calculatePointsXLim() or calculatePointsYLim() for each layer
+	 * 
+	 * @param xAxisLim true to calculate the x limits, false to calculate the y limits
+	 * @param lim the array where the limits will be stored
+	 * 
+	 * @return false if none of the points can be used
+	 */
+	protected boolean calculateLayersLimSerially(boolean xAxisLim, float[] lim) {
+		int nLayers = includeAllLayersInLim ? layerList.size() + 1 : 1;
+		lim[0] = Float.MAX_VALUE;
+		lim[1] = -Float.MAX_VALUE;
+
+		for (int i = 0; i < nLayers; i++) {
+			GPointsArray points = (i == 0) ? mainLayer.getPointsRef() : layerList.get(i - 1).getPointsRef();
+			float[] layerLim = xAxisLim ? calculatePointsXLim(points) : calculatePointsYLim(points);
+
+			if (layerLim != null) {
+				lim[0] = PApplet.min(lim[0], layerLim[0]);
+				lim[1] = PApplet.max(lim[1], layerLim[1]);
+			}
 		}
 
-		return lim;
+		return lim[1] >= lim[0];
 	}
 
 	/**
 	 * Calculates the x limits of a given set of points, considering the plot properties (axis log scale, if the other
-	 * axis limits are fixed, etc)
+	 * axis limits are fixed, etc). If it's overridden, the plot limits are calculated with it, without splitting the
+	 * points in parallel chunks
 	 * 
 	 * @param points the points for which we want to calculate the x limits
 	 * 
 	 * @return the x limits. Null if none of the points satisfies the plot properties
 	 */
 	public float[] calculatePointsXLim(GPointsArray points) {
-		// Find the points limits
 		float[] lim = new float[] { Float.MAX_VALUE, -Float.MAX_VALUE };
+		accumulatePointsXLim(points, 0, points.getNPoints(), lim);
+
+		// Check that the new limits make sense
+		if (lim[1] < lim[0]) {
+			lim = null;
+		}
 
-		for (int i = 0; i < points.getNPoints(); i++) {
+		return lim;
+	}
+
+	/**
+	 * Extends some x limits with a range of points, taking into account the y limits if they are fixed
+	 * 
+	 * @param points the points
+	 * @param from the index of the first point in the range
+	 * @param to the index after the last point in the range
+	 * @param lim the x limits that will be extended
+	 */
+	protected void accumulatePointsXLim(GPointsArray points, int from, int to, float[] lim) {
+		for (int i = from; i < to; i++) {
 			if (points.isValid(i)) {
 				// Use the point if it's inside, and it's not negative if
 				// the scale is logarithmic
@@ -661,28 +1086,39 @@ public class GPlot implements PConstants {
 				}
 			}
 		}
-
-		// Check that the new limits make sense
-		if (lim[1] < lim[0]) {
-			lim = null;
-		}
-
-		return lim;
 	}
 
 	/**
 	 * Calculates the y limits of a given set of points, considering the plot properties (axis log scale, if the other
-	 * axis limits are fixed, etc)
+	 * axis limits are fixed, etc). If it's overridden, the plot limits are calculated with it, without splitting the
+	 * points in parallel chunks
 	 * 
 	 * @param points the points for which we want to calculate the y limSits
 	 * 
 	 * @return the y limits. Null if none of the points satisfies the plot properties
 	 */
 	public float[] calculatePointsYLim(GPointsArray points) {
-		// Find the points limits
 		float[] lim = new float[] { Float.MAX_VALUE, -Float.MAX_VALUE };
+		accumulatePointsYLim(points, 0, points.getNPoints(), lim);
 
-		for (int i = 0; i < points.getNPoints(); i++) {
+		// Check that the new limits make sense
+		if (lim[1] < lim[0]) {
+			lim = null;
+		}
+
+		return lim;
+	}
+
+	/**
+	 * Extends some y limits with a range of points, taking into account the x limits if they are fixed
+	 * 
+	 * @param points the points
+	 * @param from the index of the first point in the range
+	 * @param to the index after the last point in the range
+	 * @param lim the y limits that will be extended
+	 */
+	protected void accumulatePointsYLim(GPointsArray points, int from, int to, float[] lim) {
+		for (int i = from; i < to; i++) {
 			if (points.isValid(i)) {
 				// Use the point if it's inside, and it's not negative if
 				// the scale is logarithmic
@@ -705,13 +1141,6 @@ public class GPlot implements PConstants {
 				}
 			}
 		}
-
-		// Check that the new limits make sense
-		if (lim[1] < lim[0]) {
-			lim = null;
-		}
-
-		return lim;
 	}
 
 	/**
@@ -735,8 +1164,7 @@ public class GPlot implements PConstants {
 		fixedXLim = true;
 
 		// Move the horizontal axes
-		xAxis.moveLim(xLim);
-		topAxis.moveLim(xLim);
+		moveXAxesLim();
 
 		// Update the plot limits
 		updateLimits();
@@ -763,8 +1191,7 @@ public class GPlot implements PConstants {
 		fixedYLim = true;
 
 		// Move the vertical axes
-		yAxis.moveLim(yLim);
-		rightAxis.moveLim(yLim);
+		moveYAxesLim();
 
 		// Update the plot limits
 		updateLimits();
@@ -781,18 +1208,22 @@ public class GPlot implements PConstants {
 		// Calculate the new limits
 		if (xLog) {
 			float deltaLim = PApplet.exp(PApplet.log(xLim[1] / xLim[0]) / (2 * factor));
-			xLim = new float[] { xValue / deltaLim, xValue * deltaLim };
+			xLim[0] = xValue / deltaLim;
+			xLim[1] = xValue * deltaLim;
 		} else {
 			float deltaLim = (xLim[1] - xLim[0]) / (2 * factor);
-			xLim = new float[] { xValue - deltaLim, xValue + deltaLim };
+			xLim[0] = xValue - deltaLim;
+			xLim[1] = xValue + deltaLim;
 		}
 /*
 		if (yLog) {
 			float deltaLim = PApplet.exp(PApplet.log(yLim[1] / yLim[0]) / (2 * factor));
-			yLim = new float[] { yValue / deltaLim, yValue * deltaLim };
+			yLim[0] = yValue / deltaLim;
+			yLim[1] = yValue * deltaLim;
 		} else {
 			float deltaLim = (yLim[1] - yLim[0]) / (2 * factor);
-			yLim = new float[] { yValue - deltaLim, yValue + deltaLim };
+			yLim[0] = yValue - deltaLim;
+			yLim[1] = yValue + deltaLim;
 		}
 */
 		// Fix the limits
@@ -800,8 +1231,7 @@ public class GPlot implements PConstants {
 		fixedYLim = true;
 
 		// Update the horizontal and vertical axes
-		xAxis.setLim(xLim);
-		topAxis.setLim(xLim);
+		updateXAxesLim();
 //		yAxis.setLim(yLim);
 //		rightAxis.setLim(yLim);
 
@@ -815,9 +1245,7 @@ public class GPlot implements PConstants {
 	 * @param factor the plot limits will be zoomed by this factor
 	 */
 	public void zoom(float factor) {
-		float[] centerValue = mainLayer.plotToValue(dim[0] / 2, -dim[1] / 2);
-
-		centerAndZoom(factor, centerValue[0], centerValue[1]);
+		centerAndZoom(factor, mainLayer.xPlotToValue(dim[0] / 2), mainLayer.yPlotToValue(-dim[1] / 2));
 	}
 
 	/**
@@ -828,27 +1256,33 @@ public class GPlot implements PConstants {
 	 * @param yScreen y screen position in the parent Processing applet
 	 */
 	public void zoom(float factor, float xScreen, float yScreen) {
-		float[] plotPos = getPlotPosAt(xScreen, yScreen);
-		float[] value = mainLayer.plotToValue(plotPos[0], plotPos[1]);
+		float xPlot = xScreen - (pos[0] + mar[1]);
+		float yPlot = yScreen - (pos[1] + mar[2] + dim[1]);
+		float xValue = mainLayer.xPlotToValue(xPlot);
+		float yValue = mainLayer.yPlotToValue(yPlot);
 
 		if (xLog) {
 			float deltaLim = PApplet.exp(PApplet.log(xLim[1] / xLim[0]) / (2 * factor));
-			float offset = PApplet.exp((PApplet.log(xLim[1] / xLim[0]) / factor) * (0.5f - plotPos[0] / dim[0]));
-			xLim = new float[] { value[0] * offset / deltaLim, value[0] * offset * deltaLim };
+			float offset = PApplet.exp((PApplet.log(xLim[1] / xLim[0]) / factor) * (0.5f - xPlot / dim[0]));
+			xLim[0] = xValue * offset / deltaLim;
+			xLim[1] = xValue * offset * deltaLim;
 		} else {
 			float deltaLim = (xLim[1] - xLim[0]) / (2 * factor);
-			float offset = 2 * deltaLim * (0.5f - plotPos[0] / dim[0]);
-			xLim = new float[] { value[0] + offset - deltaLim, value[0] + offset + deltaLim };
+			float offset = 2 * deltaLim * (0.5f - xPlot / dim[0]);
+			xLim[0] = xValue + offset - deltaLim;
+			xLim[1] = xValue + offset + deltaLim;
 		}
 /*
 		if (yLog) {
 			float deltaLim = PApplet.exp(PApplet.log(yLim[1] / yLim[0]) / (2 * factor));
-			float offset = PApplet.exp((PApplet.log(yLim[1] / yLim[0]) / factor) * (0.5f + plotPos[1] / dim[1]));
-			yLim = new float[] { value[1] * offset / deltaLim, value[1] * offset * deltaLim };
+			float offset = PApplet.exp((PApplet.log(yLim[1] / yLim[0]) / factor) * (0.5f + yPlot / dim[1]));
+			yLim[0] = yValue * offset / deltaLim;
+			yLim[1] = yValue * offset * deltaLim;
 		} else {
 			float deltaLim = (yLim[1] - yLim[0]) / (2 * factor);
-			float offset = 2 * deltaLim * (0.5f + plotPos[1] / dim[1]);
-			yLim = new float[] { value[1] + offset - deltaLim, value[1] + offset + deltaLim };
+			float offset = 2 * deltaLim * (0.5f + yPlot / dim[1]);
+			yLim[0] = yValue + offset - deltaLim;
+			yLim[1] = yValue + offset + deltaLim;
 		}
 */
 		// Fix the limits
@@ -856,8 +1290,7 @@ public class GPlot implements PConstants {
 //		fixedYLim = true;
 
 		// Update the horizontal and vertical axes
-		xAxis.setLim(xLim);
-		topAxis.setLim(xLim);
+		updateXAxesLim();
 //		yAxis.setLim(yLim);
 //		rightAxis.setLim(yLim);
 
@@ -866,50 +1299,52 @@ public class GPlot implements PConstants {
 	}
 	
 	public void zoomX(float factor, float xScreen, float yScreen) {
-		float[] plotPos = getPlotPosAt(xScreen, yScreen);
-		float[] value = mainLayer.plotToValue(plotPos[0], plotPos[1]);
+		float xPlot = xScreen - (pos[0] + mar[1]);
+		float xValue = mainLayer.xPlotToValue(xPlot);
 
 		if (xLog) {
 			float deltaLim = PApplet.exp(PApplet.log(xLim[1] / xLim[0]) / (2 * factor));
-			float offset = PApplet.exp((PApplet.log(xLim[1] / xLim[0]) / factor) * (0.5f - plotPos[0] / dim[0]));
-			xLim = new float[] { value[0] * offset / deltaLim, value[0] * offset * deltaLim };
+			float offset = PApplet.exp((PApplet.log(xLim[1] / xLim[0]) / factor) * (0.5f - xPlot / dim[0]));
+			xLim[0] = xValue * offset / deltaLim;
+			xLim[1] = xValue * offset * deltaLim;
 		} else {
 			float deltaLim = (xLim[1] - xLim[0]) / (2 * factor);
-			float offset = 2 * deltaLim * (0.5f - plotPos[0] / dim[0]);
-			xLim = new float[] { value[0] + offset - deltaLim, value[0] + offset + deltaLim };
+			float offset = 2 * deltaLim * (0.5f - xPlot / dim[0]);
+			xLim[0] = xValue + offset - deltaLim;
+			xLim[1] = xValue + offset + deltaLim;
 		}
 
 		// Fix the limits
 		fixedXLim = true;
 
 		// Update the horizontal and vertical axes
-		xAxis.setLim(xLim);
-		topAxis.setLim(xLim);
+		updateXAxesLim();
 
 		// Update the plot limits (the layers, because the limits are fixed)
 		updateLimits();		
 	}
 	
 	public void zoomY(float factor, float xScreen, float yScreen) {
-		float[] plotPos = getPlotPosAt(xScreen, yScreen);
-		float[] value = mainLayer.plotToValue(plotPos[0], plotPos[1]);
+		float yPlot = yScreen - (pos[1] + mar[2] + dim[1]);
+		float yValue = mainLayer.yPlotToValue(yPlot);
 
 		if (yLog) {
 			float deltaLim = PApplet.exp(PApplet.log(yLim[1] / yLim[0]) / (2 * factor));
-			float offset = PApplet.exp((PApplet.log(yLim[1] / yLim[0]) / factor) * (0.5f + plotPos[1] / dim[1]));
-			yLim = new float[] { value[1] * offset / deltaLim, value[1] * offset * deltaLim };
+			float offset = PApplet.exp((PApplet.log(yLim[1] / yLim[0]) / factor) * (0.5f + yPlot / dim[1]));
+			yLim[0] = yValue * offset / deltaLim;
+			yLim[1] = yValue * offset * deltaLim;
 		} else {
 			float deltaLim = (yLim[1] - yLim[0]) / (2 * factor);
-			float offset = 2 * deltaLim * (0.5f + plotPos[1] / dim[1]);
-			yLim = new float[] { value[1] + offset - deltaLim, value[1] + offset + deltaLim };
+			float offset = 2 * deltaLim * (0.5f + yPlot / dim[1]);
+			yLim[0] = yValue + offset - deltaLim;
+			yLim[1] = yValue + offset + deltaLim;
 		}
 
 		// Fix the limits
 		fixedYLim = true;
 
 		// Update the Y axis
-		yAxis.setLim(yLim);
-		rightAxis.setLim(yLim);
+		updateYAxesLim();
 
 		// Update the plot limits (the layers, because the limits are fixed)
 		updateLimits();
@@ -923,24 +1358,35 @@ public class GPlot implements PConstants {
 	 * @param newPlotPos new plot position of the value
 	 */
 	protected void shiftPlotPos(float[] valuePlotPos, float[] newPlotPos) {
-		// Calculate the new limits
-		float deltaXPlot = valuePlotPos[0] - newPlotPos[0];
-		float deltaYPlot = valuePlotPos[1] - newPlotPos[1];
+		shiftPlotPos(valuePlotPos[0] - newPlotPos[0], valuePlotPos[1] - newPlotPos[1]);
+	}
 
+	/**
+	 * Shifts the plot coordinates by a given plot distance. The limits are modified in place
+	 * 
+	 * @param deltaXPlot the horizontal distance in the plot reference system
+	 * @param deltaYPlot the vertical distance in the plot reference system
+	 */
+	protected void shiftPlotPos(float deltaXPlot, float deltaYPlot) {
+		// Calculate the new limits
 		if (xLog) {
 			float deltaLim = PApplet.exp(PApplet.log(xLim[1] / xLim[0]) * deltaXPlot / dim[0]);
-			xLim = new float[] { xLim[0] * deltaLim, xLim[1] * deltaLim };
+			xLim[0] *= deltaLim;
+			xLim[1] *= deltaLim;
 		} else {
 			float deltaLim = (xLim[1] - xLim[0]) * deltaXPlot / dim[0];
-			xLim = new float[] { xLim[0] + deltaLim, xLim[1] + deltaLim };
+			xLim[0] += deltaLim;
+			xLim[1] += deltaLim;
 		}
 
 		if (yLog) {
 			float deltaLim = PApplet.exp(-PApplet.log(yLim[1] / yLim[0]) * deltaYPlot / dim[1]);
-			yLim = new float[] { yLim[0] * deltaLim, yLim[1] * deltaLim };
+			yLim[0] *= deltaLim;
+			yLim[1] *= deltaLim;
 		} else {
 			float deltaLim = -(yLim[1] - yLim[0]) * deltaYPlot / dim[1];
-			yLim = new float[] { yLim[0] + deltaLim, yLim[1] + deltaLim };
+			yLim[0] += deltaLim;
+			yLim[1] += deltaLim;
 		}
 
 		// Fix the limits
@@ -948,10 +1394,8 @@ public class GPlot implements PConstants {
 		fixedYLim = true;
 
 		// Move the horizontal and vertical axes
-		xAxis.moveLim(xLim);
-		topAxis.moveLim(xLim);
-		yAxis.moveLim(yLim);
-		rightAxis.moveLim(yLim);
+		moveXAxesLim();
+		moveYAxesLim();
 
 		// Update the plot limits (the layers, because the limits are fixed)
 		updateLimits();
@@ -967,10 +1411,10 @@ public class GPlot implements PConstants {
 	 * @param yScreen y screen position in the parent Processing applet
 	 */
 	public void align(float xValue, float yValue, float xScreen, float yScreen) {
-		float[] valuePlotPos = mainLayer.valueToPlot(xValue, yValue);
-		float[] newPlotPos = getPlotPosAt(xScreen, yScreen);
+		float deltaXPlot = mainLayer.valueToXPlot(xValue) - (xScreen - (pos[0] + mar[1]));
+		float deltaYPlot = mainLayer.valueToYPlot(yValue) - (yScreen - (pos[1] + mar[2] + dim[1]));
 
-		shiftPlotPos(valuePlotPos, newPlotPos);
+		shiftPlotPos(deltaXPlot, deltaYPlot);
 	}
 
 	/**
@@ -992,10 +1436,10 @@ public class GPlot implements PConstants {
 	 * @param yScreen y screen position in the parent Processing applet
 	 */
 	public void center(float xScreen, float yScreen) {
-		float[] valuePlotPos = getPlotPosAt(xScreen, yScreen);
-		float[] newPlotPos = new float[] { dim[0] / 2, -dim[1] / 2 };
+		float deltaXPlot = xScreen - (pos[0] + mar[1]) - dim[0] / 2;
+		float deltaYPlot = yScreen - (pos[1] + mar[2] + dim[1]) + dim[1] / 2;
 
-		shiftPlotPos(valuePlotPos, newPlotPos);
+		shiftPlotPos(deltaXPlot, deltaYPlot);
 	}
 
 	/**
@@ -1009,6 +1453,147 @@ public class GPlot implements PConstants {
 		for (int i = 0; i < layerList.size(); i++) {
 			layerList.get(i).startHistogram(histType);
 		}
+
+		markDirty();
+	}
+
+	/**
+	 * Applies the queued mouse interactions, adopts the points published in the plot layers and drains the enqueued
+	 * points, updating the plot limits only once. If a frame pipeline is set, it also starts the preparation of the
+	 * layers whose points or limits changed. It's called automatically by the parent applet before each frame is drawn
+	 */
+	public void pre() {
+		beginUpdate();
+
+		try {
+			applyPendingInteraction();
+			boolean changed = mainLayer.adoptPublishedPoints();
+			changed |= mainLayer.drainPendingPoints();
+
+			for (int i = 0; i < layerList.size(); i++) {
+				changed |= layerList.get(i).adoptPublishedPoints();
+				changed |= layerList.get(i).drainPendingPoints();
+			}
+
+			if (changed) {
+				updateLimits();
+			}
+		} finally {
+			endUpdate();
+		}
+
+		if (framePipeline != null) {
+			framePipeline.prepare(this);
+		}
+	}
+
+	/**
+	 * Replaces the points of the plot layers with their last published points, updating the plot limits only once
+	 * 
+	 * @return true if the points of some layer were replaced
+	 */
+	public boolean adoptPublishedPoints() {
+		boolean adopted = mainLayer.adoptPublishedPoints();
+
+		for (int i = 0; i < layerList.size(); i++) {
+			adopted |= layerList.get(i).adoptPublishedPoints();
+		}
+
+		if (adopted) {
+			updateLimits();
+		}
+
+		return adopted;
+	}
+
+	/**
+	 * Adds the points enqueued from other threads to all the plot layers, updating the plot limits only once
+	 * 
+	 * @return true if some points were added
+	 */
+	public boolean drainPendingPoints() {
+		boolean added = mainLayer.drainPendingPoints();
+
+		for (int i = 0; i < layerList.size(); i++) {
+			added |= layerList.get(i).drainPendingPoints();
+		}
+
+		if (added) {
+			updateLimits();
+		}
+
+		return added;
+	}
+
+	/**
+	 * Enqueues a new point in the main layer. It will be added at the start of the next frame. This method can be
+	 * called from any thread
+	 * 
+	 * @param x the new point x coordinate
+	 * @param y the new point y coordinate
+	 * @param label the new point label
+	 */
+	public void enqueuePoint(float x, float y, String label) {
+		mainLayer.enqueuePoint(x, y, label);
+	}
+
+	/**
+	 * Enqueues a new point in one of the plot layers. It will be added at the start of the next frame. This method can
+	 * be called from any thread, as long as the plot layers are not added or removed at the same time
+	 * 
+	 * @param x the new point x coordinate
+	 * @param y the new point y coordinate
+	 * @param label the new point label
+	 * @param layerId the layer id
+	 */
+	public void enqueuePoint(float x, float y, String label, String layerId) {
+		getLayer(layerId).enqueuePoint(x, y, label);
+	}
+
+	/**
+	 * Enqueues a new point in the layer with the specified handle. It will be added at the start of the next frame.
+	 * This method can be called from any thread, as long as the plot layers are not added or removed at the same time
+	 * 
+	 * @param x the new point x coordinate
+	 * @param y the new point y coordinate
+	 * @param label the new point label
+	 * @param layerHandle the layer handle
+	 */
+	public void enqueuePoint(float x, float y, String label, int layerHandle) {
+		getLayer(layerHandle).enqueuePoint(x, y, label);
+	}
+
+	/**
+	 * Enqueues some new points in the main layer. They will be added at the start of the next frame. This method can be
+	 * called from any thread
+	 * 
+	 * @param newPoints the points to add
+	 */
+	public void enqueuePoints(GPointsArray newPoints) {
+		mainLayer.enqueuePoints(newPoints);
+	}
+
+	/**
+	 * Enqueues some new points in one of the plot layers. They will be added at the start of the next frame. This
+	 * method can be called from any thread, as long as the plot layers are not added or removed at the same time
+	 * 
+	 * @param newPoints the points to add
+	 * @param layerId the layer id
+	 */
+	public void enqueuePoints(GPointsArray newPoints, String layerId) {
+		getLayer(layerId).enqueuePoints(newPoints);
+	}
+
+	/**
+	 * Enqueues some new points in the layer with the specified handle. They will be added at the start of the next
+	 * frame. This method can be called from any thread, as long as the plot layers are not added or removed at the same
+	 * time
+	 * 
+	 * @param newPoints the points to add
+	 * @param layerHandle the layer handle
+	 */
+	public void enqueuePoints(GPointsArray newPoints, int layerHandle) {
+		getLayer(layerHandle).enqueuePoints(newPoints);
 	}
 
 	/**
@@ -1028,9 +1613,10 @@ public class GPlot implements PConstants {
 
 	/**
 	 * Prepares the environment to start drawing the different plot components (points, axes, title, etc). Use endDraw()
-	 * to return the sketch to its original state
+	 * to return the sketch to its original state. The plot is not dirty anymore after calling this method
 	 */
 	public void beginDraw() {
+		markClean();
 		parent.pushStyle();
 		parent.pushMatrix();
 		parent.translate(pos[0] + mar[1], pos[1] + mar[2] + dim[1]);
@@ -1105,6 +1691,54 @@ public class GPlot implements PConstants {
 		title.draw();
 	}
 
+	/**
+	 * Draws the points from all layers in the plot using their last prepared frames
+	 */
+	public void drawPreparedPoints() {
+		mainLayer.drawPreparedPoints();
+
+		for (int i = 0; i < layerList.size(); i++) {
+			layerList.get(i).drawPreparedPoints();
+		}
+	}
+
+	/**
+	 * Draws the points from all layers in the plot using their last prepared frames
+	 * 
+	 * @param pointShape the shape that should be used to represent the points
+	 */
+	public void drawPreparedPoints(PShape pointShape) {
+		mainLayer.drawPreparedPoints(pointShape);
+
+		for (int i = 0; i < layerList.size(); i++) {
+			layerList.get(i).drawPreparedPoints(pointShape);
+		}
+	}
+
+	/**
+	 * Draws the points from all layers in the plot using their last prepared frames
+	 * 
+	 * @param pointImg the image that should be used to represent the points
+	 */
+	public void drawPreparedPoints(PImage pointImg) {
+		mainLayer.drawPreparedPoints(pointImg);
+
+		for (int i = 0; i < layerList.size(); i++) {
+			layerList.get(i).drawPreparedPoints(pointImg);
+		}
+	}
+
+	/**
+	 * Draws lines connecting the points from all layers in the plot using their last prepared frames
+	 */
+	public void drawPreparedLines() {
+		mainLayer.drawPreparedLines();
+
+		for (int i = 0; i < layerList.size(); i++) {
+			layerList.get(i).drawPreparedLines();
+		}
+	}
+
 	/**
 	 * Draws the points from all layers in the plot
 	 */
@@ -1318,11 +1952,12 @@ public class GPlot implements PConstants {
 	 * @param yScreen y screen position in the parent Processing applet
 	 */
 	public void drawLabelsAt(float xScreen, float yScreen) {
-		float[] plotPos = getPlotPosAt(xScreen, yScreen);
-		mainLayer.drawLabelAtPlotPos(plotPos[0], plotPos[1]);
+		float xPlot = xScreen - (pos[0] + mar[1]);
+		float yPlot = yScreen - (pos[1] + mar[2] + dim[1]);
+		mainLayer.drawLabelAtPlotPos(xPlot, yPlot);
 
 		for (int i = 0; i < layerList.size(); i++) {
-			layerList.get(i).drawLabelAtPlotPos(plotPos[0], plotPos[1]);
+			layerList.get(i).drawLabelAtPlotPos(xPlot, yPlot);
 		}
 	}
 
@@ -1336,6 +1971,18 @@ public class GPlot implements PConstants {
 		}
 	}
 
+	/**
+	 * Draws the labels of all the points inside the box in each layer, skipping those labels that would collide with
+	 * other labels of the same layer
+	 */
+	public void drawAllLabels() {
+		mainLayer.drawAllLabels();
+
+		for (int i = 0; i < layerList.size(); i++) {
+			layerList.get(i).drawAllLabels();
+		}
+	}
+
 	/**
 	 * Draws lines connecting the horizontal and vertical axis ticks
 	 * 
@@ -1444,6 +2091,7 @@ public class GPlot implements PConstants {
 	public void setPos(float x, float y) {
 		pos[0] = x;
 		pos[1] = y;
+		markDirty();
 	}
 
 	/**
@@ -1486,6 +2134,8 @@ public class GPlot implements PConstants {
 				}
 			}
 		}
+
+		markDirty();
 	}
 
 	/**
@@ -1518,6 +2168,8 @@ public class GPlot implements PConstants {
 			outerDim[0] = xOuterDim;
 			outerDim[1] = yOuterDim;
 		}
+
+		markDirty();
 	}
 
 	/**
@@ -1560,6 +2212,8 @@ public class GPlot implements PConstants {
 				}
 			}
 		}
+
+		markDirty();
 	}
 
 	/**
@@ -1591,8 +2245,7 @@ public class GPlot implements PConstants {
 				fixedXLim = true;
 
 				// Update the axes
-				xAxis.setLim(xLim);
-				topAxis.setLim(xLim);
+				updateXAxesLim();
 
 				// Update the plot limits
 				updateLimits();
@@ -1629,8 +2282,7 @@ public class GPlot implements PConstants {
 				fixedYLim = true;
 
 				// Update the axes
-				yAxis.setLim(yLim);
-				rightAxis.setLim(yLim);
+				updateYAxesLim();
 
 				// Update the plot limits
 				updateLimits();
@@ -1719,10 +2371,8 @@ public class GPlot implements PConstants {
 			}
 
 			// Update the axes
-			xAxis.setLimAndLog(xLim, xLog);
-			topAxis.setLimAndLog(xLim, xLog);
-			yAxis.setLimAndLog(yLim, yLog);
-			rightAxis.setLimAndLog(yLim, yLog);
+			updateXAxesLim();
+			updateYAxesLim();
 
 			// Update the layers
 			mainLayer.setLimAndLog(xLim, yLim, xLog, yLog);
@@ -1731,6 +2381,8 @@ public class GPlot implements PConstants {
 				layerList.get(i).setLimAndLog(xLim, yLim, xLog, yLog);
 			}
 		}
+
+		markDirty();
 	}
 
 	/**
@@ -1746,8 +2398,7 @@ public class GPlot implements PConstants {
 			xLim[1] = temp;
 
 			// Update the axes
-			xAxis.setLim(xLim);
-			topAxis.setLim(xLim);
+			updateXAxesLim();
 
 			// Update the layers
 			mainLayer.setXLim(xLim);
@@ -1756,6 +2407,8 @@ public class GPlot implements PConstants {
 				layerList.get(i).setXLim(xLim);
 			}
 		}
+
+		markDirty();
 	}
 
 	/**
@@ -1763,6 +2416,7 @@ public class GPlot implements PConstants {
 	 */
 	public void invertXScale() {
 		setInvertedXScale(!invertedXScale);
+		markDirty();
 	}
 
 	/**
@@ -1778,8 +2432,7 @@ public class GPlot implements PConstants {
 			yLim[1] = temp;
 
 			// Update the axes
-			yAxis.setLim(yLim);
-			rightAxis.setLim(yLim);
+			updateYAxesLim();
 
 			// Update the layers
 			mainLayer.setYLim(yLim);
@@ -1788,6 +2441,8 @@ public class GPlot implements PConstants {
 				layerList.get(i).setYLim(yLim);
 			}
 		}
+
+		markDirty();
 	}
 
 	/**
@@ -1795,6 +2450,7 @@ public class GPlot implements PConstants {
 	 */
 	public void invertYScale() {
 		setInvertedYScale(!invertedYScale);
+		markDirty();
 	}
 
 	/**
@@ -1811,6 +2467,28 @@ public class GPlot implements PConstants {
 		}
 	}
 
+	/**
+	 * Sets the pipeline that will prepare the layer frames in worker threads. The prepared frames are drawn with
+	 * drawPreparedPoints() and drawPreparedLines(). While a pipeline is set, the limits changes don't project the layer
+	 * points in the animation thread. They are only projected there if a synchronous drawing or query method needs them
+	 * 
+	 * @param pipeline the new frame pipeline. Use null to stop preparing frames
+	 */
+	public void setFramePipeline(GFramePipeline pipeline) {
+		framePipeline = pipeline;
+		updateLayersProjection();
+	}
+
+	/**
+	 * Sets the listener that will be notified when the plot needs to be drawn again. Use
+	 * GRedrawListener.PARENT_REDRAW in sketches that call noLoop() to draw a new frame only when the plot changes
+	 * 
+	 * @param listener the new redraw listener. Use null to remove the current listener
+	 */
+	public void setRedrawListener(GRedrawListener listener) {
+		redrawListener = listener;
+	}
+
 	/**
 	 * Sets the factor that is used to expand the axes limits
 	 * 
@@ -1832,6 +2510,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setBgColor(int newBgColor) {
 		bgColor = newBgColor;
+		markDirty();
 	}
 
 	/**
@@ -1841,6 +2520,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setBoxBgColor(int newBoxBgColor) {
 		boxBgColor = newBoxBgColor;
+		markDirty();
 	}
 
 	/**
@@ -1850,6 +2530,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setBoxLineColor(int newBoxLineColor) {
 		boxLineColor = newBoxLineColor;
+		markDirty();
 	}
 
 	/**
@@ -1861,6 +2542,8 @@ public class GPlot implements PConstants {
 		if (newBoxLineWidth > 0) {
 			boxLineWidth = newBoxLineWidth;
 		}
+
+		markDirty();
 	}
 
 	/**
@@ -1870,6 +2553,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setGridLineColor(int newGridLineColor) {
 		gridLineColor = newGridLineColor;
+		markDirty();
 	}
 
 	/**
@@ -1881,6 +2565,8 @@ public class GPlot implements PConstants {
 		if (newGridLineWidth > 0) {
 			gridLineWidth = newGridLineWidth;
 		}
+
+		markDirty();
 	}
 
 	/**
@@ -1991,6 +2677,19 @@ public class GPlot implements PConstants {
 		updateLimits();
 	}
 
+	/**
+	 * Adds a new point to the points of the layer with the specified handle
+	 * 
+	 * @param x the new point x coordinate
+	 * @param y the new point y coordinate
+	 * @param label the new point label
+	 * @param layerHandle the layer handle
+	 */
+	public void addPoint(float x, float y, String label, int layerHandle) {
+		getLayer(layerHandle).addPoint(x, y, label);
+		updateLimits();
+	}
+
 	/**
 	 * Adds a new point to the main layer points
 	 * 
@@ -2106,6 +2805,17 @@ public class GPlot implements PConstants {
 		updateLimits();
 	}
 
+	/**
+	 * Adds new points to the points of the layer with the specified handle
+	 * 
+	 * @param newPoints the points to add
+	 * @param layerHandle the layer handle
+	 */
+	public void addPoints(GPointsArray newPoints, int layerHandle) {
+		getLayer(layerHandle).addPoints(newPoints);
+		updateLimits();
+	}
+
 	/**
 	 * Removes one of the main layer points
 	 * 
@@ -2134,6 +2844,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setPointColors(int[] pointColors) {
 		mainLayer.setPointColors(pointColors);
+		markDirty();
 	}
 
 	/**
@@ -2143,6 +2854,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setPointColor(int pointColor) {
 		mainLayer.setPointColor(pointColor);
+		markDirty();
 	}
 
 	/**
@@ -2152,6 +2864,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setPointSizes(float[] pointSizes) {
 		mainLayer.setPointSizes(pointSizes);
+		markDirty();
 	}
 
 	/**
@@ -2161,6 +2874,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setPointSize(float pointSize) {
 		mainLayer.setPointSize(pointSize);
+		markDirty();
 	}
 
 	/**
@@ -2170,6 +2884,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setLineColor(int lineColor) {
 		mainLayer.setLineColor(lineColor);
+		markDirty();
 	}
 
 	/**
@@ -2179,6 +2894,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setLineWidth(float lineWidth) {
 		mainLayer.setLineWidth(lineWidth);
+		markDirty();
 	}
 
 	/**
@@ -2188,6 +2904,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setHistBasePoint(GPoint basePoint) {
 		mainLayer.setHistBasePoint(basePoint);
+		markDirty();
 	}
 
 	/**
@@ -2198,6 +2915,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setHistType(int histType) {
 		mainLayer.setHistType(histType);
+		markDirty();
 	}
 
 	/**
@@ -2207,6 +2925,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setHistVisible(boolean visible) {
 		mainLayer.setHistVisible(visible);
+		markDirty();
 	}
 
 	/**
@@ -2216,6 +2935,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setDrawHistLabels(boolean drawHistLabels) {
 		mainLayer.setDrawHistLabels(drawHistLabels);
+		markDirty();
 	}
 
 	/**
@@ -2225,6 +2945,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setLabelBgColor(int labelBgColor) {
 		mainLayer.setLabelBgColor(labelBgColor);
+		markDirty();
 	}
 
 	/**
@@ -2234,6 +2955,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setLabelSeparation(float[] labelSeparation) {
 		mainLayer.setLabelSeparation(labelSeparation);
+		markDirty();
 	}
 
 	/**
@@ -2243,6 +2965,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setTitleText(String text) {
 		title.setText(text);
+		markDirty();
 	}
 
 	/**
@@ -2255,6 +2978,7 @@ public class GPlot implements PConstants {
 		topAxis.setOffset(offset);
 		yAxis.setOffset(offset);
 		rightAxis.setOffset(offset);
+		markDirty();
 	}
 
 	/**
@@ -2267,6 +2991,7 @@ public class GPlot implements PConstants {
 		topAxis.setTickLength(tickLength);
 		yAxis.setTickLength(tickLength);
 		rightAxis.setTickLength(tickLength);
+		markDirty();
 	}
 
 	/**
@@ -2278,6 +3003,7 @@ public class GPlot implements PConstants {
 	public void setHorizontalAxesNTicks(int nTicks) {
 		xAxis.setNTicks(nTicks);
 		topAxis.setNTicks(nTicks);
+		markDirty();
 	}
 
 	/**
@@ -2288,6 +3014,7 @@ public class GPlot implements PConstants {
 	public void setHorizontalAxesTicksSeparation(float ticksSeparation) {
 		xAxis.setTicksSeparation(ticksSeparation);
 		topAxis.setTicksSeparation(ticksSeparation);
+		markDirty();
 	}
 
 	/**
@@ -2298,6 +3025,7 @@ public class GPlot implements PConstants {
 	public void setHorizontalAxesTicks(float[] ticks) {
 		xAxis.setTicks(ticks);
 		topAxis.setTicks(ticks);
+		markDirty();
 	}
 
 	/**
@@ -2309,6 +3037,7 @@ public class GPlot implements PConstants {
 	public void setVerticalAxesNTicks(int nTicks) {
 		yAxis.setNTicks(nTicks);
 		rightAxis.setNTicks(nTicks);
+		markDirty();
 	}
 
 	/**
@@ -2319,6 +3048,7 @@ public class GPlot implements PConstants {
 	public void setVerticalAxesTicksSeparation(float ticksSeparation) {
 		yAxis.setTicksSeparation(ticksSeparation);
 		rightAxis.setTicksSeparation(ticksSeparation);
+		markDirty();
 	}
 
 	/**
@@ -2329,6 +3059,7 @@ public class GPlot implements PConstants {
 	public void setVerticalAxesTicks(float[] ticks) {
 		yAxis.setTicks(ticks);
 		rightAxis.setTicks(ticks);
+		markDirty();
 	}
 
 	/**
@@ -2338,6 +3069,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setFontName(String fontName) {
 		mainLayer.setFontName(fontName);
+		markDirty();
 	}
 
 	/**
@@ -2347,6 +3079,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setFontColor(int fontColor) {
 		mainLayer.setFontColor(fontColor);
+		markDirty();
 	}
 
 	/**
@@ -2356,6 +3089,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setFontSize(int fontSize) {
 		mainLayer.setFontSize(fontSize);
+		markDirty();
 	}
 
 	/**
@@ -2367,6 +3101,7 @@ public class GPlot implements PConstants {
 	 */
 	public void setFontProperties(String fontName, int fontColor, int fontSize) {
 		mainLayer.setFontProperties(fontName, fontColor, fontSize);
+		markDirty();
 	}
 
 	/**
@@ -2388,6 +3123,8 @@ public class GPlot implements PConstants {
 		for (int i = 0; i < layerList.size(); i++) {
 			layerList.get(i).setAllFontProperties(fontName, fontColor, fontSize);
 		}
+
+		markDirty();
 	}
 
 	/**
@@ -2498,6 +3235,24 @@ public class GPlot implements PConstants {
 		return invertedYScale;
 	}
 
+	/**
+	 * Returns the frame pipeline used to prepare the layer frames
+	 * 
+	 * @return the frame pipeline. It's null if no pipeline is set
+	 */
+	public GFramePipeline getFramePipeline() {
+		return framePipeline;
+	}
+
+	/**
+	 * Returns the listener that is notified when the plot needs to be drawn again
+	 * 
+	 * @return the redraw listener. It's null if no listener is set
+	 */
+	public GRedrawListener getRedrawListener() {
+		return redrawListener;
+	}
+
 	/**
 	 * Returns the plot main layer
 	 * 
@@ -2515,18 +3270,8 @@ public class GPlot implements PConstants {
 	 * @return the layer with the specified id
 	 */
 	public GLayer getLayer(String id) {
-		GLayer l = null;
-
-		if (mainLayer.isId(id)) {
-			l = mainLayer;
-		} else {
-			for (int i = 0; i < layerList.size(); i++) {
-				if (layerList.get(i).isId(id)) {
-					l = layerList.get(i);
-					break;
-				}
-			}
-		}
+		Integer handle = layerHandles.get(id);
+		GLayer l = (handle != null) ? handleLayers.get(handle) : null;
 
 		if (l == null) {
 			PApplet.println("Couldn't find a layer in the plot with id = " + id);
@@ -2535,6 +3280,31 @@ public class GPlot implements PConstants {
 		return l;
 	}
 
+	/**
+	 * Returns the layer with a given handle
+	 * 
+	 * @param layerHandle the layer handle
+	 * 
+	 * @return the layer with the specified handle. Null if the handle is not valid or the layer was removed
+	 */
+	public GLayer getLayer(int layerHandle) {
+		return (layerHandle >= 0 && layerHandle < handleLayers.size()) ? handleLayers.get(layerHandle) : null;
+	}
+
+	/**
+	 * Returns the handle of a layer with an specific id. Handles can be used instead of ids to access the plot layers
+	 * without any string comparison
+	 * 
+	 * @param id the layer id
+	 * 
+	 * @return the layer handle. -1 if there is no layer with the specified id
+	 */
+	public int getLayerHandle(String id) {
+		Integer handle = layerHandles.get(id);
+
+		return (handle != null) ? handle : -1;
+	}
+
 	/**
 	 * Returns the plot x axis
 	 * 
@@ -2620,6 +3390,17 @@ public class GPlot implements PConstants {
 		return getLayer(layerId).getPointsRef();
 	}
 
+	/**
+	 * Returns the points of the layer with the specified handle
+	 * 
+	 * @param layerHandle the layer handle
+	 * 
+	 * @return the points of the layer with the specified handle
+	 */
+	public GPointsArray getPointsRef(int layerHandle) {
+		return getLayer(layerHandle).getPointsRef();
+	}
+
 	/**
 	 * Returns the histogram of the main layer
 	 * 
@@ -2920,17 +3701,14 @@ public class GPlot implements PConstants {
 						// Save the axes limits if it's the first mouse
 						// modification after the last reset
 						if (resetIsActive && (xLimReset == null || yLimReset == null)) {
-							xLimReset = xLim.clone();
-							yLimReset = yLim.clone();
+							saveLimReset();
 						}
 
 						if (wheelCounter <= 0) {
-							if ((modifiers & ALTMOD) != 0) { 
-							    zoom(zoomFactor, xMouse, yMouse);
-							} else if ((modifiers & CTRLMOD) != 0) { 
-							    zoomY(zoomFactor, xMouse, yMouse);
+							if ((modifiers & CTRLMOD) != 0 && (modifiers & ALTMOD) == 0) {
+								queueZoom(1, zoomFactor, xMouse, yMouse);
 							} else {
-								zoomX(zoomFactor, xMouse,yMouse);
+								queueZoom(zoomFactor, 1, xMouse, yMouse);
 							}
 						}
 					}
@@ -2942,21 +3720,16 @@ public class GPlot implements PConstants {
 						// Save the axes limits if it's the first mouse
 						// modification after the last reset
 						if (resetIsActive && (xLimReset == null || yLimReset == null)) {
-							xLimReset = xLim.clone();
-							yLimReset = yLim.clone();
+							saveLimReset();
 						}
 
 						if (wheelCounter >= 0) {
-							if ((modifiers & ALTMOD) != 0) { 
-							    zoom(1/zoomFactor, xMouse, yMouse);
-							} else if ((modifiers & CTRLMOD) != 0) { 
-							    zoomY(1/zoomFactor, xMouse, yMouse);
+							if ((modifiers & CTRLMOD) != 0 && (modifiers & ALTMOD) == 0) {
+								queueZoom(1, 1 / zoomFactor, xMouse, yMouse);
 							} else {
-								zoomX(1/zoomFactor, xMouse,yMouse);
+								queueZoom(1 / zoomFactor, 1, xMouse, yMouse);
 							}
-						}						
-						
-						
+						}
 					}
 				}
 			}
@@ -2968,10 +3741,10 @@ public class GPlot implements PConstants {
 						// Save the axes limits if it's the first mouse
 						// modification after the last reset
 						if (resetIsActive && (xLimReset == null || yLimReset == null)) {
-							xLimReset = xLim.clone();
-							yLimReset = yLim.clone();
+							saveLimReset();
 						}
 
+						applyPendingInteraction();
 						center(xMouse, yMouse);
 					}
 				}
@@ -2984,13 +3757,14 @@ public class GPlot implements PConstants {
 							// Save the axes limits if it's the first mouse
 							// modification after the last reset
 							if (resetIsActive && (xLimReset == null || yLimReset == null)) {
-								xLimReset = xLim.clone();
-								yLimReset = yLim.clone();
+								saveLimReset();
 							}
 
-							align(panningReferencePoint, xMouse, yMouse);
+							queuePan(panningReferencePoint, xMouse, yMouse);
 						} else if (isOverBox(xMouse, yMouse)) {
-							panningReferencePoint = getValueAt(xMouse, yMouse);
+							panningReferenceBuffer[0] = mainLayer.xPlotToValue(xMouse - (pos[0] + mar[1]));
+							panningReferenceBuffer[1] = mainLayer.yPlotToValue(yMouse - (pos[1] + mar[2] + dim[1]));
+							panningReferencePoint = panningReferenceBuffer;
 						}
 					} else if (action == MouseEvent.RELEASE) {
 						panningReferencePoint = null;
@@ -3002,9 +3776,13 @@ public class GPlot implements PConstants {
 				if (button == labelingButton
 						&& (labelingKeyModifier == NONE || (modifiers & labelingKeyModifier) != 0)) {
 					if ((action == MouseEvent.PRESS || action == MouseEvent.DRAG) && isOverBox(xMouse, yMouse)) {
-						mousePos = new float[] { xMouse, yMouse };
-					} else {
+						mousePosBuffer[0] = xMouse;
+						mousePosBuffer[1] = yMouse;
+						mousePos = mousePosBuffer;
+						markDirty();
+					} else if (mousePos != null) {
 						mousePos = null;
+						markDirty();
 					}
 				}
 			}
@@ -3013,6 +3791,7 @@ public class GPlot implements PConstants {
 				if (button == resetButton && (resetKeyModifier == NONE || (modifiers & resetKeyModifier) != 0)) {
 					if (isOverBox(xMouse, yMouse)) {
 						if (xLimReset != null && yLimReset != null) {
+							applyPendingInteraction();
 							setXLim(xLimReset);
 							setYLim(yLimReset);
 							xLimReset = null;
@@ -3023,4 +3802,97 @@ public class GPlot implements PConstants {
 			}
 		}
 	}
+
+	/**
+	 * Saves the current plot limits in the reset buffers, so they can be restored later with the reset button
+	 */
+	protected void saveLimReset() {
+		xLimResetBuffer[0] = xLim[0];
+		xLimResetBuffer[1] = xLim[1];
+		yLimResetBuffer[0] = yLim[0];
+		yLimResetBuffer[1] = yLim[1];
+		xLimReset = xLimResetBuffer;
+		yLimReset = yLimResetBuffer;
+	}
+
+	/**
+	 * Queues a zoom that will be applied at the start of the next frame. It's combined with the previous queued zooms
+	 * if they are centered on the same screen position. Otherwise, the previous zooms are applied first
+	 * 
+	 * @param xFactor the horizontal limits zoom factor
+	 * @param yFactor the vertical limits zoom factor
+	 * @param xScreen x screen position in the parent Processing applet that should keep the same plot value
+	 * @param yScreen y screen position in the parent Processing applet that should keep the same plot value
+	 */
+	protected void queueZoom(float xFactor, float yFactor, float xScreen, float yScreen) {
+		markDirty();
+
+		if (pendingInteraction != ZOOM_INTERACTION || pendingMousePos[0] != xScreen || pendingMousePos[1] != yScreen) {
+			applyPendingInteraction();
+			pendingInteraction = ZOOM_INTERACTION;
+		}
+
+		pendingXZoomFactor *= xFactor;
+		pendingYZoomFactor *= yFactor;
+		pendingMousePos[0] = xScreen;
+		pendingMousePos[1] = yScreen;
+	}
+
+	/**
+	 * Queues a pan that will be applied at the start of the next frame. Only the last queued pan for a given reference
+	 * value needs to be applied
+	 * 
+	 * @param value the x and y plot values that should be moved to the screen position
+	 * @param xScreen x screen position in the parent Processing applet
+	 * @param yScreen y screen position in the parent Processing applet
+	 */
+	protected void queuePan(float[] value, float xScreen, float yScreen) {
+		markDirty();
+
+		if (pendingInteraction != PAN_INTERACTION || pendingPanningValue[0] != value[0]
+				|| pendingPanningValue[1] != value[1]) {
+			applyPendingInteraction();
+			pendingInteraction = PAN_INTERACTION;
+			pendingPanningValue[0] = value[0];
+			pendingPanningValue[1] = value[1];
+		}
+
+		pendingMousePos[0] = xScreen;
+		pendingMousePos[1] = yScreen;
+	}
+
+	/**
+	 * Applies the queued mouse interactions, updating the plot limits only once. It's called automatically at the
+	 * start of each frame
+	 * 
+	 * @return true if some interaction was applied
+	 */
+	public boolean applyPendingInteraction() {
+		if (pendingInteraction == NONE) {
+			return false;
+		}
+
+		beginUpdate();
+
+		try {
+			if (pendingInteraction == ZOOM_INTERACTION) {
+				if (pendingXZoomFactor != 1) {
+					zoomX(pendingXZoomFactor, pendingMousePos[0], pendingMousePos[1]);
+				}
+
+				if (pendingYZoomFactor != 1) {
+					zoomY(pendingYZoomFactor, pendingMousePos[0], pendingMousePos[1]);
+				}
+			} else if (pendingInteraction == PAN_INTERACTION) {
+				align(pendingPanningValue, pendingMousePos[0], pendingMousePos[1]);
+			}
+		} finally {
+			pendingInteraction = NONE;
+			pendingXZoomFactor = 1;
+			pendingYZoomFactor = 1;
+			endUpdate();
+		}
+
+		return true;
+	}
 }
@@ -0,0 +1,50 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+/**
+ * Plot renderer interface. It contains the drawing calls used to render a plot outside of the sketch draw method, for
+ * example in the tiles of a dashboard or in headless batch renders.
+ * 
+ * @author ##author##
+ */
+public interface GPlotRenderer {
+	// Renderer that draws the plot with its default parameters
+	public static final GPlotRenderer DEFAULT_RENDERER = new GPlotRenderer() {
+		public void draw(GPlot plot) {
+			plot.defaultDraw();
+		}
+	};
+
+	/**
+	 * Draws a plot
+	 * 
+	 * @param plot the plot to draw
+	 */
+	public void draw(GPlot plot);
+}
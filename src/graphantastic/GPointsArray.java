@@ -38,6 +38,7 @@ import processing.core.PVector;
  */
 public class GPointsArray {
 	protected ArrayList<GPoint> points;
+	protected int modCount;
 
 	/**
 	 * Constructor
@@ -158,6 +159,7 @@ public class GPointsArray {
 	 * @param point the point
 	 */
 	public void add(GPoint point) {
+		modCount++;
 		points.add(new GPoint(point));
 	}
 
@@ -169,6 +171,7 @@ public class GPointsArray {
 	 * @param label the point text label
 	 */
 	public void add(float x, float y, String label) {
+		modCount++;
 		points.add(new GPoint(x, y, label));
 	}
 
@@ -179,6 +182,7 @@ public class GPointsArray {
 	 * @param y the point y coordinate
 	 */
 	public void add(float x, float y) {
+		modCount++;
 		points.add(new GPoint(x, y));
 	}
 
@@ -189,6 +193,7 @@ public class GPointsArray {
 	 * @param label the point text label
 	 */
 	public void add(PVector v, String label) {
+		modCount++;
 		points.add(new GPoint(v, label));
 	}
 
@@ -198,6 +203,7 @@ public class GPointsArray {
 	 * @param v the Processing vector with the point x and y coordinates
 	 */
 	public void add(PVector v) {
+		modCount++;
 		points.add(new GPoint(v));
 	}
 
@@ -208,6 +214,7 @@ public class GPointsArray {
 	 * @param point the point
 	 */
 	public void add(int index, GPoint point) {
+		modCount++;
 		points.add(index, new GPoint(point));
 	}
 
@@ -220,6 +227,7 @@ public class GPointsArray {
 	 * @param label the point text label
 	 */
 	public void add(int index, float x, float y, String label) {
+		modCount++;
 		points.add(index, new GPoint(x, y, label));
 	}
 
@@ -231,6 +239,7 @@ public class GPointsArray {
 	 * @param y the point y coordinate
 	 */
 	public void add(int index, float x, float y) {
+		modCount++;
 		points.add(index, new GPoint(x, y));
 	}
 
@@ -242,6 +251,7 @@ public class GPointsArray {
 	 * @param label the point text label
 	 */
 	public void add(int index, PVector v, String label) {
+		modCount++;
 		points.add(index, new GPoint(v, label));
 	}
 
@@ -252,6 +262,7 @@ public class GPointsArray {
 	 * @param v the Processing vector with the point x and y coordinates
 	 */
 	public void add(int index, PVector v) {
+		modCount++;
 		points.add(index, new GPoint(v));
 	}
 
@@ -261,6 +272,7 @@ public class GPointsArray {
 	 * @param pts the new set of points
 	 */
 	public void add(GPoint[] pts) {
+		modCount++;
 		for (int i = 0; i < pts.length; i++) {
 			points.add(new GPoint(pts[i]));
 		}
@@ -272,6 +284,7 @@ public class GPointsArray {
 	 * @param pts the new set of points
 	 */
 	public void add(GPointsArray pts) {
+		modCount++;
 		for (int i = 0; i < pts.getNPoints(); i++) {
 			points.add(new GPoint(pts.get(i)));
 		}
@@ -285,6 +298,7 @@ public class GPointsArray {
 	 * @param labels the points text labels
 	 */
 	public void add(float[] x, float[] y, String[] labels) {
+		modCount++;
 		for (int i = 0; i < x.length; i++) {
 			points.add(new GPoint(x[i], y[i], labels[i]));
 		}
@@ -297,6 +311,7 @@ public class GPointsArray {
 	 * @param y the points y coordinates
 	 */
 	public void add(float[] x, float[] y) {
+		modCount++;
 		for (int i = 0; i < x.length; i++) {
 			points.add(new GPoint(x[i], y[i]));
 		}
@@ -309,6 +324,7 @@ public class GPointsArray {
 	 * @param labels the points text labels
 	 */
 	public void add(PVector[] vectors, String[] labels) {
+		modCount++;
 		for (int i = 0; i < vectors.length; i++) {
 			points.add(new GPoint(vectors[i], labels[i]));
 		}
@@ -320,6 +336,7 @@ public class GPointsArray {
 	 * @param vectors the Processing vectors with the points x and y coordinates
 	 */
 	public void add(PVector[] vectors) {
+		modCount++;
 		for (int i = 0; i < vectors.length; i++) {
 			points.add(new GPoint(vectors[i]));
 		}
@@ -331,6 +348,7 @@ public class GPointsArray {
 	 * @param vectors the Processing vectors with the points x and y coordinates
 	 */
 	public void add(ArrayList<PVector> vectors) {
+		modCount++;
 		for (int i = 0; i < vectors.size(); i++) {
 			points.add(new GPoint(vectors.get(i)));
 		}
@@ -342,6 +360,7 @@ public class GPointsArray {
 	 * @param index the point index.
 	 */
 	public void remove(int index) {
+		modCount++;
 		points.remove(index);
 	}
 
@@ -352,6 +371,7 @@ public class GPointsArray {
 	 * @param toIndex the end point index.
 	 */
 	public void removeRange(int fromIndex, int toIndex) {
+		modCount++;
 		points.subList(fromIndex, toIndex).clear();
 	}
 
@@ -359,6 +379,7 @@ public class GPointsArray {
 	 * Removes invalid points from the array
 	 */
 	public void removeInvalidPoints() {
+		modCount++;
 		for (Iterator<GPoint> it = points.iterator(); it.hasNext();) {
 			if (!it.next().isValid()) {
 				it.remove();
@@ -372,6 +393,7 @@ public class GPointsArray {
 	 * @param pts the new points. The number of points could differ from the original.
 	 */
 	public void set(GPointsArray pts) {
+		modCount++;
 		if (pts.getNPoints() == points.size()) {
 			for (int i = 0; i < points.size(); i++) {
 				points.get(i).set(pts.get(i));
@@ -400,6 +422,7 @@ public class GPointsArray {
 	 * @param point the point to use
 	 */
 	public void set(int index, GPoint point) {
+		modCount++;
 		if (index == points.size()) {
 			points.add(new GPoint(point));
 		} else {
@@ -416,6 +439,7 @@ public class GPointsArray {
 	 * @param label the point new text label
 	 */
 	public void set(int index, float x, float y, String label) {
+		modCount++;
 		if (index == points.size()) {
 			points.add(new GPoint(x, y, label));
 		} else {
@@ -431,6 +455,7 @@ public class GPointsArray {
 	 * @param label the point new text label
 	 */
 	public void set(int index, PVector v, String label) {
+		modCount++;
 		if (index == points.size()) {
 			points.add(new GPoint(v, label));
 		} else {
@@ -445,6 +470,7 @@ public class GPointsArray {
 	 * @param x the point new x coordinate
 	 */
 	public void setX(int index, float x) {
+		modCount++;
 		points.get(index).setX(x);
 	}
 
@@ -455,6 +481,7 @@ public class GPointsArray {
 	 * @param y the point new y coordinate
 	 */
 	public void setY(int index, float y) {
+		modCount++;
 		points.get(index).setY(y);
 	}
 
@@ -466,6 +493,7 @@ public class GPointsArray {
 	 * @param y the point new y coordinate
 	 */
 	public void setXY(int index, float x, float y) {
+		modCount++;
 		points.get(index).setXY(x, y);
 	}
 
@@ -476,6 +504,7 @@ public class GPointsArray {
 	 * @param v the Processing vector with the point new x and y coordinates
 	 */
 	public void setXY(int index, PVector v) {
+		modCount++;
 		points.get(index).setXY(v);
 	}
 
@@ -486,6 +515,7 @@ public class GPointsArray {
 	 * @param label the point new text label
 	 */
 	public void setLabel(int index, String label) {
+		modCount++;
 		points.get(index).setLabel(label);
 	}
 
@@ -495,6 +525,7 @@ public class GPointsArray {
 	 * @param nPoints the new total number of points in the array. It should be smaller than the current number.
 	 */
 	public void setNPoints(int nPoints) {
+		modCount++;
 		points.subList(nPoints, points.size()).clear();
 	}
 
@@ -573,6 +604,16 @@ public class GPointsArray {
 		return points.get(index).isValid();
 	}
 
+	/**
+	 * Returns the number of times that the array has been modified. It can be used to detect changes in the array.
+	 * Modifications made directly on the point references returned by get() are not counted
+	 * 
+	 * @return the number of times that the array has been modified
+	 */
+	public int getModCount() {
+		return modCount;
+	}
+
 	/**
 	 * Returns the latest point added to the array
 	 * 
@@ -0,0 +1,178 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+/**
+ * Points queue class. It stores the points enqueued by other threads as primitive records, so enqueuing a point
+ * doesn't allocate any object once the queue has grown to its working size. The records are written to one set of
+ * arrays and read from another, and both sets are swapped when the points are consumed, so the producers only wait
+ * for the swap and not for the copy of the points.
+ * 
+ * @author ##author##
+ */
+public class GPointsQueue {
+	// The records written by the producers. Guarded by the queue lock
+	protected float[] x;
+	protected float[] y;
+	protected String[] labels;
+	protected int nRecords;
+
+	// The records read by the consumer. Only accessed from the thread that consumes the queue
+	protected float[] consumedX;
+	protected float[] consumedY;
+	protected String[] consumedLabels;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param capacity the initial queue capacity
+	 */
+	public GPointsQueue(int capacity) {
+		capacity = Math.max(1, capacity);
+		x = new float[capacity];
+		y = new float[capacity];
+		labels = new String[capacity];
+		nRecords = 0;
+		consumedX = new float[capacity];
+		consumedY = new float[capacity];
+		consumedLabels = new String[capacity];
+	}
+
+	/**
+	 * Adds a point to the queue. This method can be called from any thread
+	 * 
+	 * @param newX the point x coordinate
+	 * @param newY the point y coordinate
+	 * @param newLabel the point label
+	 */
+	public synchronized void add(float newX, float newY, String newLabel) {
+		ensureCapacity(nRecords + 1);
+		x[nRecords] = newX;
+		y[nRecords] = newY;
+		labels[nRecords] = newLabel;
+		nRecords++;
+	}
+
+	/**
+	 * Adds some points to the queue. This method can be called from any thread
+	 * 
+	 * @param newX the points x coordinates
+	 * @param newY the points y coordinates
+	 * @param newLabels the points labels
+	 * @param nNewRecords the number of points to add
+	 */
+	public synchronized void add(float[] newX, float[] newY, String[] newLabels, int nNewRecords) {
+		ensureCapacity(nRecords + nNewRecords);
+		System.arraycopy(newX, 0, x, nRecords, nNewRecords);
+		System.arraycopy(newY, 0, y, nRecords, nNewRecords);
+		System.arraycopy(newLabels, 0, labels, nRecords, nNewRecords);
+		nRecords += nNewRecords;
+	}
+
+	/**
+	 * Adds some points to the queue. This method can be called from any thread
+	 * 
+	 * @param newPoints the points to add
+	 */
+	public synchronized void add(GPointsArray newPoints) {
+		int nNewRecords = newPoints.getNPoints();
+		ensureCapacity(nRecords + nNewRecords);
+
+		for (int i = 0; i < nNewRecords; i++) {
+			x[nRecords] = newPoints.getX(i);
+			y[nRecords] = newPoints.getY(i);
+			labels[nRecords] = newPoints.getLabel(i);
+			nRecords++;
+		}
+	}
+
+	/**
+	 * Grows the producer arrays if they can't hold a given number of records
+	 * 
+	 * @param minCapacity the minimum number of records
+	 */
+	protected void ensureCapacity(int minCapacity) {
+		if (minCapacity > x.length) {
+			int newCapacity = Math.max(minCapacity, 2 * x.length);
+			float[] newXArray = new float[newCapacity];
+			float[] newYArray = new float[newCapacity];
+			String[] newLabels = new String[newCapacity];
+			System.arraycopy(x, 0, newXArray, 0, nRecords);
+			System.arraycopy(y, 0, newYArray, 0, nRecords);
+			System.arraycopy(labels, 0, newLabels, 0, nRecords);
+			x = newXArray;
+			y = newYArray;
+			labels = newLabels;
+		}
+	}
+
+	/**
+	 * Moves the queued points to a given points array. It should always be called from the same thread
+	 * 
+	 * @param target the points array that will receive the queued points
+	 * 
+	 * @return the number of moved points
+	 */
+	public int consume(GPointsArray target) {
+		int nConsumed;
+
+		synchronized (this) {
+			if (nRecords == 0) {
+				return 0;
+			}
+
+			float[] tmpX = consumedX;
+			float[] tmpY = consumedY;
+			String[] tmpLabels = consumedLabels;
+			consumedX = x;
+			consumedY = y;
+			consumedLabels = labels;
+			nConsumed = nRecords;
+			x = tmpX;
+			y = tmpY;
+			labels = tmpLabels;
+			nRecords = 0;
+		}
+
+		for (int i = 0; i < nConsumed; i++) {
+			target.add(consumedX[i], consumedY[i], consumedLabels[i]);
+			consumedLabels[i] = null;
+		}
+
+		return nConsumed;
+	}
+
+	/**
+	 * Returns the number of queued points. This method can be called from any thread
+	 * 
+	 * @return the number of queued points
+	 */
+	public synchronized int getNPoints() {
+		return nRecords;
+	}
+}
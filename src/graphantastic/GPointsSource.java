@@ -0,0 +1,66 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+/**
+ * Points source interface. It's implemented by the objects that buffer points for a layer in other threads, like the
+ * layer subscribers. The layer consumes the buffered points at the start of each frame, together with the enqueued
+ * points.
+ * 
+ * @author ##author##
+ */
+public interface GPointsSource {
+	/**
+	 * Moves the buffered points to a given points array. It's called from the thread that draws the layer
+	 * 
+	 * @param target the points array that will receive the buffered points
+	 * 
+	 * @return the number of moved points
+	 */
+	public int consume(GPointsArray target);
+
+	/**
+	 * Returns the number of buffered points. It can be called from any thread
+	 * 
+	 * @return the number of buffered points
+	 */
+	public int getNBufferedPoints();
+
+	/**
+	 * Checks if the source is finished and all the buffered points were consumed. Finished sources are removed from
+	 * the layer
+	 * 
+	 * @return true if the source is finished
+	 */
+	public boolean isFinished();
+
+	/**
+	 * Stops the source. The points that are already buffered will still be consumed
+	 */
+	public void cancel();
+}
@@ -0,0 +1,252 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+/**
+ * Polygon clipper class. It clips polygons to the plot box using the Sutherland-Hodgman algorithm. The vertices are
+ * kept in primitive buffers that are reused between calls, and the last clipped polygon is kept together with the
+ * information needed to know if it's still valid.
+ * 
+ * @author ##author##
+ */
+public class GPolygonClipper {
+	// The clipped polygon vertices in the plot reference system
+	protected float[] x;
+	protected float[] y;
+	protected int nVertices;
+
+	// Helper buffers
+	protected float[] tmpX;
+	protected float[] tmpY;
+
+	// The state of the polygon and the layer when the polygon was clipped
+	protected int pointsModCount;
+	protected int limitsVersion;
+
+	/**
+	 * Constructor
+	 */
+	public GPolygonClipper() {
+		x = new float[0];
+		y = new float[0];
+		nVertices = 0;
+		tmpX = new float[0];
+		tmpY = new float[0];
+		pointsModCount = -1;
+		limitsVersion = -1;
+	}
+
+	/**
+	 * Makes sure that the buffers can hold a given number of vertices
+	 * 
+	 * @param capacity the number of vertices
+	 */
+	protected void ensureCapacity(int capacity) {
+		if (x.length < capacity) {
+			int newCapacity = Math.max(capacity, 2 * x.length);
+			float[] newX = new float[newCapacity];
+			float[] newY = new float[newCapacity];
+			System.arraycopy(x, 0, newX, 0, nVertices);
+			System.arraycopy(y, 0, newY, 0, nVertices);
+			x = newX;
+			y = newY;
+			tmpX = new float[newCapacity];
+			tmpY = new float[newCapacity];
+		}
+	}
+
+	/**
+	 * Starts a new polygon, removing the previous vertices
+	 * 
+	 * @param expectedVertices the expected number of vertices in the polygon
+	 */
+	public void reset(int expectedVertices) {
+		nVertices = 0;
+		ensureCapacity(expectedVertices);
+	}
+
+	/**
+	 * Adds a vertex to the polygon
+	 * 
+	 * @param xPlot the vertex x position in the plot reference system
+	 * @param yPlot the vertex y position in the plot reference system
+	 */
+	public void addVertex(float xPlot, float yPlot) {
+		if (nVertices == x.length) {
+			ensureCapacity(2 * nVertices + 4);
+		}
+
+		x[nVertices] = xPlot;
+		y[nVertices] = yPlot;
+		nVertices++;
+	}
+
+	/**
+	 * Clips the polygon to the plot box
+	 * 
+	 * @param xDim the plot box x dimension
+	 * @param yDim the plot box y dimension
+	 */
+	public void clip(float xDim, float yDim) {
+		clipToBorder(0, 0);
+		clipToBorder(1, xDim);
+		clipToBorder(2, 0);
+		clipToBorder(3, -yDim);
+	}
+
+	/**
+	 * Clips the polygon to one of the box borders
+	 * 
+	 * @param border the border type: 0 (x >= limit), 1 (x <= limit), 2 (y <= limit) or 3 (y >= limit)
+	 * @param limit the border position in the plot reference system
+	 */
+	protected void clipToBorder(int border, float limit) {
+		if (nVertices == 0) {
+			return;
+		}
+
+		// Each vertex can produce at most two new vertices (the cut and itself)
+		ensureCapacity(2 * nVertices);
+
+		int counter = 0;
+		float prevX = x[nVertices - 1];
+		float prevY = y[nVertices - 1];
+		boolean prevInside = isInside(border, limit, prevX, prevY);
+
+		for (int i = 0; i < nVertices; i++) {
+			float currX = x[i];
+			float currY = y[i];
+			boolean currInside = isInside(border, limit, currX, currY);
+
+			// Add the cut with the border if the edge crosses it
+			if (currInside != prevInside) {
+				if (border < 2) {
+					tmpX[counter] = limit;
+					tmpY[counter] = prevY + (currY - prevY) * (limit - prevX) / (currX - prevX);
+				} else {
+					tmpX[counter] = prevX + (currX - prevX) * (limit - prevY) / (currY - prevY);
+					tmpY[counter] = limit;
+				}
+
+				counter++;
+			}
+
+			if (currInside) {
+				tmpX[counter] = currX;
+				tmpY[counter] = currY;
+				counter++;
+			}
+
+			prevX = currX;
+			prevY = currY;
+			prevInside = currInside;
+		}
+
+		// Swap the buffers
+		float[] swap = x;
+		x = tmpX;
+		tmpX = swap;
+		swap = y;
+		y = tmpY;
+		tmpY = swap;
+		nVertices = counter;
+	}
+
+	/**
+	 * Checks if a position is on the inner side of one of the box borders
+	 * 
+	 * @param border the border type
+	 * @param limit the border position in the plot reference system
+	 * @param xPlot x position in the plot reference system
+	 * @param yPlot y position in the plot reference system
+	 * 
+	 * @return true if the position is on the inner side of the border
+	 */
+	protected boolean isInside(int border, float limit, float xPlot, float yPlot) {
+		switch (border) {
+		case 0:
+			return xPlot >= limit;
+		case 1:
+			return xPlot <= limit;
+		case 2:
+			return yPlot <= limit;
+		default:
+			return yPlot >= limit;
+		}
+	}
+
+	/**
+	 * Checks if the clipped polygon corresponds to the given polygon and layer states
+	 * 
+	 * @param newPointsModCount the modification count of the polygon points
+	 * @param newLimitsVersion the limits version of the layer
+	 * 
+	 * @return true if the clipped polygon can be reused
+	 */
+	public boolean isValid(int newPointsModCount, int newLimitsVersion) {
+		return pointsModCount == newPointsModCount && limitsVersion == newLimitsVersion;
+	}
+
+	/**
+	 * Sets the polygon and layer states that correspond to the clipped polygon
+	 * 
+	 * @param newPointsModCount the modification count of the polygon points
+	 * @param newLimitsVersion the limits version of the layer
+	 */
+	public void setState(int newPointsModCount, int newLimitsVersion) {
+		pointsModCount = newPointsModCount;
+		limitsVersion = newLimitsVersion;
+	}
+
+	/**
+	 * Returns the number of vertices in the clipped polygon
+	 * 
+	 * @return the number of vertices in the clipped polygon
+	 */
+	public int getNVertices() {
+		return nVertices;
+	}
+
+	/**
+	 * Returns the x positions of the clipped polygon vertices. Only the first getNVertices() elements are used
+	 * 
+	 * @return the x positions of the clipped polygon vertices
+	 */
+	public float[] getXRef() {
+		return x;
+	}
+
+	/**
+	 * Returns the y positions of the clipped polygon vertices. Only the first getNVertices() elements are used
+	 * 
+	 * @return the y positions of the clipped polygon vertices
+	 */
+	public float[] getYRef() {
+		return y;
+	}
+}
@@ -0,0 +1,290 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+import java.util.BitSet;
+import processing.core.PApplet;
+
+/**
+ * Prepared frame class. It contains the geometry needed to draw the points and the lines of a layer. The frame takes a
+ * snapshot of the point coordinates in primitive arrays when it's created, so the projection to the plot reference
+ * system, the inside classification, the decimation and the clipping can be done in a worker thread while the
+ * animation thread keeps drawing and modifying the layer.
+ * 
+ * @author ##author##
+ */
+public class GPreparedFrame implements Runnable {
+	// The layer that will receive the frame
+	protected final GLayer layer;
+
+	// Snapshot of the layer state
+	protected final int nPoints;
+	protected final float[] dim;
+	protected final float[] xLim;
+	protected final float[] yLim;
+	protected final boolean xLog;
+	protected final boolean yLog;
+	protected final boolean uniformPoints;
+	protected final int pointsModCount;
+	protected final int limitsVersion;
+
+	// The snapshot of the point coordinates, transformed in place to the plot reference system, and the prepared
+	// geometry
+	protected float[] x;
+	protected float[] y;
+	protected float[] pointCoordinates;
+	protected int[] pointIndices;
+	protected int nPreparedPoints;
+	protected float[] lineCoordinates;
+	protected int nPreparedLines;
+	protected volatile boolean finished;
+
+	/**
+	 * Constructor. It should be called from the thread that modifies the layer
+	 * 
+	 * @param layer the layer that will receive the frame
+	 * @param finishedFrame a frame of the same layer whose preparation has finished. Its coordinate arrays are reused
+	 *            for the new snapshot. It can be null
+	 */
+	public GPreparedFrame(GLayer layer, GPreparedFrame finishedFrame) {
+		GPointsArray points = layer.points;
+		this.layer = layer;
+		nPoints = points.getNPoints();
+		dim = layer.dim.clone();
+		xLim = layer.xLim.clone();
+		yLim = layer.yLim.clone();
+		xLog = layer.xLog;
+		yLog = layer.yLog;
+		uniformPoints = layer.pointColors.length == 1 && layer.pointSizes.length == 1;
+		pointsModCount = points.getModCount();
+		limitsVersion = layer.limitsVersion;
+
+		if (finishedFrame != null && finishedFrame.isFinished() && finishedFrame.x.length >= nPoints) {
+			x = finishedFrame.x;
+			y = finishedFrame.y;
+		} else {
+			// Leave some room for the points added in the next frames
+			x = new float[nPoints + nPoints / 2];
+			y = new float[nPoints + nPoints / 2];
+		}
+
+		for (int i = 0; i < nPoints; i++) {
+			x[i] = points.getX(i);
+			y[i] = points.getY(i);
+		}
+
+		pointCoordinates = new float[0];
+		pointIndices = new int[0];
+		nPreparedPoints = 0;
+		lineCoordinates = new float[0];
+		nPreparedLines = 0;
+		finished = false;
+	}
+
+	/**
+	 * Prepares the frame geometry, publishes the frame in the layer and notifies the plot that contains the layer, so
+	 * it's drawn again with the new frame
+	 */
+	public void run() {
+		try {
+			projectPoints();
+			preparePoints();
+			prepareLines();
+			layer.preparedFrame.set(this);
+		} finally {
+			finished = true;
+			layer.notifyPendingPoints();
+		}
+	}
+
+	/**
+	 * Transforms the snapshot of the layer points to the plot reference system
+	 */
+	protected void projectPoints() {
+		float xScalingFactor = xLog ? dim[0] / PApplet.log(xLim[1] / xLim[0]) : dim[0] / (xLim[1] - xLim[0]);
+		float yScalingFactor = yLog ? -dim[1] / PApplet.log(yLim[1] / yLim[0]) : -dim[1] / (yLim[1] - yLim[0]);
+		for (int i = 0; i < nPoints; i++) {
+			float xValue = x[i];
+			float yValue = y[i];
+			x[i] = xLog ? PApplet.log(xValue / xLim[0]) * xScalingFactor : (xValue - xLim[0]) * xScalingFactor;
+			y[i] = yLog ? PApplet.log(yValue / yLim[0]) * yScalingFactor : (yValue - yLim[0]) * yScalingFactor;
+		}
+	}
+
+	/**
+	 * Selects the points inside the plot box. If all the points have the same color and size, only one point is kept
+	 * for each pixel, because the rest would be drawn on top of it
+	 */
+	protected void preparePoints() {
+		int xPixels = (int) dim[0] + 1;
+		BitSet occupied = uniformPoints ? new BitSet() : null;
+		pointCoordinates = new float[2 * nPoints];
+		pointIndices = new int[nPoints];
+		nPreparedPoints = 0;
+
+		for (int i = 0; i < nPoints; i++) {
+			if (isValid(i) && x[i] >= 0 && x[i] <= dim[0] && -y[i] >= 0 && -y[i] <= dim[1]) {
+				if (occupied != null) {
+					int pixel = (int) x[i] + xPixels * (int) -y[i];
+
+					if (occupied.get(pixel)) {
+						continue;
+					}
+
+					occupied.set(pixel);
+				}
+
+				pointCoordinates[2 * nPreparedPoints] = x[i];
+				pointCoordinates[2 * nPreparedPoints + 1] = y[i];
+				pointIndices[nPreparedPoints] = i;
+				nPreparedPoints++;
+			}
+		}
+	}
+
+	/**
+	 * Prepares the clipped segments that connect consecutive points. Runs of points that fall in the same pixel column
+	 * are reduced to their first, minimum, maximum and last points, which look the same on the screen
+	 */
+	protected void prepareLines() {
+		int[] kept = new int[nPoints];
+		int nKept = 0;
+		int runStart = 0;
+
+		while (runStart < nPoints) {
+			if (!isValid(runStart)) {
+				kept[nKept++] = runStart;
+				runStart++;
+				continue;
+			}
+
+			// Find the consecutive valid points that share the same pixel column
+			int column = (int) Math.floor(x[runStart]);
+			int runEnd = runStart + 1;
+			int minIndex = runStart;
+			int maxIndex = runStart;
+
+			while (runEnd < nPoints && isValid(runEnd) && (int) Math.floor(x[runEnd]) == column) {
+				if (y[runEnd] < y[minIndex]) {
+					minIndex = runEnd;
+				} else if (y[runEnd] > y[maxIndex]) {
+					maxIndex = runEnd;
+				}
+
+				runEnd++;
+			}
+
+			// Keep the selected points in their original order
+			int last = runEnd - 1;
+			kept[nKept++] = runStart;
+
+			if (minIndex != runStart && minIndex != last && minIndex < maxIndex) {
+				kept[nKept++] = minIndex;
+			}
+
+			if (maxIndex != runStart && maxIndex != last) {
+				kept[nKept++] = maxIndex;
+			}
+
+			if (minIndex != runStart && minIndex != last && minIndex > maxIndex) {
+				kept[nKept++] = minIndex;
+			}
+
+			if (last != runStart) {
+				kept[nKept++] = last;
+			}
+
+			runStart = runEnd;
+		}
+
+		float[] result = new float[4];
+		lineCoordinates = new float[4 * Math.max(nKept - 1, 0)];
+		nPreparedLines = 0;
+
+		for (int k = 0; k < nKept - 1; k++) {
+			int i = kept[k];
+			int j = kept[k + 1];
+
+			if (isValid(i) && isValid(j) && GLayer.clipSegment(x[i], y[i], x[j], y[j], dim[0], dim[1], result) >= 0) {
+				System.arraycopy(result, 0, lineCoordinates, 4 * nPreparedLines, 4);
+				nPreparedLines++;
+			}
+		}
+	}
+
+	/**
+	 * Checks if a projected point is valid
+	 * 
+	 * @param index the point index
+	 * 
+	 * @return true if the point position is a valid number
+	 */
+	protected boolean isValid(int index) {
+		return !Float.isNaN(x[index]) && !Float.isInfinite(x[index]) && !Float.isNaN(y[index])
+				&& !Float.isInfinite(y[index]);
+	}
+
+	/**
+	 * Checks if the frame was prepared with the current layer state
+	 * 
+	 * @param modCount the layer points modification count
+	 * @param version the layer limits version
+	 * 
+	 * @return true if the frame corresponds to the given layer state
+	 */
+	public boolean isValid(int modCount, int version) {
+		return pointsModCount == modCount && limitsVersion == version;
+	}
+
+	/**
+	 * Checks if the frame preparation has finished
+	 * 
+	 * @return true if the frame preparation has finished
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Returns the number of prepared points
+	 * 
+	 * @return the number of prepared points
+	 */
+	public int getNPreparedPoints() {
+		return nPreparedPoints;
+	}
+
+	/**
+	 * Returns the number of prepared line segments
+	 * 
+	 * @return the number of prepared line segments
+	 */
+	public int getNPreparedLines() {
+		return nPreparedLines;
+	}
+}
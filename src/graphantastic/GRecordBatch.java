@@ -0,0 +1,215 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+/**
+ * Record batch class. It parses text records into primitive arrays until they are delivered to a plot layer. Each
+ * record contains the x and y coordinates and an optional label, separated by commas, semicolons, spaces or tabs.
+ * 
+ * @author ##author##
+ */
+public class GRecordBatch {
+	// The layer that will receive the batch
+	protected final GLayer layer;
+
+	// The parsed records
+	protected float[] x;
+	protected float[] y;
+	protected String[] labels;
+	protected int nRecords;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param layer the layer that will receive the batch
+	 * @param capacity the initial batch capacity
+	 */
+	public GRecordBatch(GLayer layer, int capacity) {
+		this.layer = layer;
+		x = new float[capacity];
+		y = new float[capacity];
+		labels = new String[capacity];
+		nRecords = 0;
+	}
+
+	/**
+	 * Parses a record and adds it to the batch. Empty records and records that can't be parsed are ignored
+	 * 
+	 * @param record the text record
+	 * @param start the record start position in the text
+	 * @param end the record end position in the text
+	 * 
+	 * @return true if the record was added to the batch
+	 */
+	public boolean parse(String record, int start, int end) {
+		// Find the x and y fields
+		int xStart = skipSeparators(record, start, end);
+		int xEnd = skipField(record, xStart, end);
+		int yStart = skipSeparators(record, xEnd, end);
+		int yEnd = skipField(record, yStart, end);
+
+		if (xStart == xEnd || yStart == yEnd) {
+			return false;
+		}
+
+		float newX, newY;
+
+		try {
+			newX = Float.parseFloat(record.substring(xStart, xEnd));
+			newY = Float.parseFloat(record.substring(yStart, yEnd));
+		} catch (NumberFormatException e) {
+			return false;
+		}
+
+		// The rest of the record is the label
+		int labelStart = skipSeparators(record, yEnd, end);
+		int labelEnd = end;
+
+		while (labelEnd > labelStart && Character.isWhitespace(record.charAt(labelEnd - 1))) {
+			labelEnd--;
+		}
+
+		add(newX, newY, (labelStart < labelEnd) ? record.substring(labelStart, labelEnd) : "");
+
+		return true;
+	}
+
+	/**
+	 * Adds a record to the batch
+	 * 
+	 * @param newX the record x coordinate
+	 * @param newY the record y coordinate
+	 * @param newLabel the record label
+	 */
+	public void add(float newX, float newY, String newLabel) {
+		if (nRecords == x.length) {
+			int newCapacity = Math.max(16, 2 * nRecords);
+			float[] newXArray = new float[newCapacity];
+			float[] newYArray = new float[newCapacity];
+			String[] newLabels = new String[newCapacity];
+			System.arraycopy(x, 0, newXArray, 0, nRecords);
+			System.arraycopy(y, 0, newYArray, 0, nRecords);
+			System.arraycopy(labels, 0, newLabels, 0, nRecords);
+			x = newXArray;
+			y = newYArray;
+			labels = newLabels;
+		}
+
+		x[nRecords] = newX;
+		y[nRecords] = newY;
+		labels[nRecords] = newLabel;
+		nRecords++;
+	}
+
+	/**
+	 * Delivers the batch records to the layer and empties the batch. The records are enqueued, so they will be added
+	 * to the layer at the start of the next frame. This method can be called from any thread
+	 * 
+	 * @return the number of delivered records
+	 */
+	public int deliver() {
+		if (nRecords == 0) {
+			return 0;
+		}
+
+		int delivered = nRecords;
+		layer.pendingPoints.add(x, y, labels, nRecords);
+		layer.notifyPendingPoints();
+
+		for (int i = 0; i < nRecords; i++) {
+			labels[i] = null;
+		}
+
+		nRecords = 0;
+
+		return delivered;
+	}
+
+	/**
+	 * Returns the layer that will receive the batch
+	 * 
+	 * @return the layer
+	 */
+	public GLayer getLayer() {
+		return layer;
+	}
+
+	/**
+	 * Returns the number of records in the batch
+	 * 
+	 * @return the number of records in the batch
+	 */
+	public int getNRecords() {
+		return nRecords;
+	}
+
+	/**
+	 * Checks if a character is a field separator
+	 * 
+	 * @param c the character
+	 * 
+	 * @return true if the character is a field separator
+	 */
+	protected static boolean isSeparator(char c) {
+		return c == ',' || c == ';' || Character.isWhitespace(c);
+	}
+
+	/**
+	 * Returns the position of the first character that is not a field separator
+	 * 
+	 * @param text the text
+	 * @param start the start position
+	 * @param end the end position
+	 * 
+	 * @return the position of the first character that is not a separator, or end if there is none
+	 */
+	protected static int skipSeparators(String text, int start, int end) {
+		while (start < end && isSeparator(text.charAt(start))) {
+			start++;
+		}
+
+		return start;
+	}
+
+	/**
+	 * Returns the position of the first field separator
+	 * 
+	 * @param text the text
+	 * @param start the start position
+	 * @param end the end position
+	 * 
+	 * @return the position of the first separator, or end if there is none
+	 */
+	protected static int skipField(String text, int start, int end) {
+		while (start < end && !isSeparator(text.charAt(start))) {
+			start++;
+		}
+
+		return start;
+	}
+}
@@ -0,0 +1,51 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+/**
+ * Redraw listener interface. It's notified when a plot that was already drawn changes and needs to be drawn again,
+ * so sketches that only draw on demand with noLoop() and redraw() don't miss any change.
+ * 
+ * @author ##author##
+ */
+public interface GRedrawListener {
+	// Listener that asks the parent applet of the plot to draw a new frame
+	public static final GRedrawListener PARENT_REDRAW = new GRedrawListener() {
+		public void redrawNeeded(GPlot plot) {
+			plot.parent.redraw();
+		}
+	};
+
+	/**
+	 * Notifies that a plot needs to be drawn again. It's called once every time the plot changes after being drawn,
+	 * and it can be called from any thread
+	 * 
+	 * @param plot the plot that changed
+	 */
+	public void redrawNeeded(GPlot plot);
+}
@@ -0,0 +1,391 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+import java.util.Arrays;
+import processing.core.PApplet;
+
+/**
+ * Sliding window histogram class. It keeps the bin counts of the last N samples, or of the samples that arrived in the
+ * last T seconds, updating them incrementally as new samples arrive and old samples expire. Only the bars that changed
+ * since the last update are sent to the layer. Sample windows keep the bin of each sample in a ring buffer. Time
+ * windows keep the bin counts of a fixed number of time slices, so samples expire one slice at a time.
+ * 
+ * @author ##author##
+ */
+public class GSlidingHistogram {
+	// Bins and window counts
+	protected final GBinner binner;
+	protected int nSamples;
+
+	// Sample window properties
+	protected final int maxSamples;
+	protected int[] sampleBins;
+	protected int firstSample;
+
+	// Time window properties
+	protected final int nSlices;
+	protected final long sliceMillis;
+	protected int[][] sliceCounts;
+	protected long[] sliceIds;
+	protected int[] sliceNSamples;
+	protected long lastSlice;
+
+	// Bars that changed since the last update
+	protected boolean[] changed;
+	protected int[] changedBins;
+	protected int nChanged;
+
+	/**
+	 * Constructor for a window containing the last N samples
+	 * 
+	 * @param nBins the number of bins
+	 * @param min the start of the first bin
+	 * @param max the end of the last bin
+	 * @param log true if the bins should have the same width in logarithmic scale
+	 * @param maxSamples the number of samples in the window
+	 */
+	public GSlidingHistogram(int nBins, float min, float max, boolean log, int maxSamples) {
+		binner = new GBinner(nBins, min, max, log);
+		nSamples = 0;
+
+		this.maxSamples = (maxSamples > 0) ? maxSamples : 1;
+		sampleBins = new int[this.maxSamples];
+		firstSample = 0;
+
+		nSlices = 0;
+		sliceMillis = 0;
+
+		initializeChanged();
+	}
+
+	/**
+	 * Constructor for a window containing the samples that arrived in the last T seconds
+	 * 
+	 * @param nBins the number of bins
+	 * @param min the start of the first bin
+	 * @param max the end of the last bin
+	 * @param log true if the bins should have the same width in logarithmic scale
+	 * @param windowSeconds the window duration in seconds
+	 * @param nSlices the number of time slices in the window. Samples expire one slice at a time
+	 */
+	public GSlidingHistogram(int nBins, float min, float max, boolean log, float windowSeconds, int nSlices) {
+		binner = new GBinner(nBins, min, max, log);
+		nSamples = 0;
+
+		maxSamples = 0;
+
+		if (windowSeconds <= 0) {
+			PApplet.println("The window duration should be positive. Will set it to 1 second");
+			windowSeconds = 1;
+		}
+
+		this.nSlices = (nSlices > 0) ? nSlices : 1;
+		sliceMillis = Math.max(1, (long) (1000.0 * windowSeconds / this.nSlices));
+		sliceCounts = new int[this.nSlices][binner.getNBins()];
+		sliceIds = new long[this.nSlices];
+		Arrays.fill(sliceIds, -1);
+		sliceNSamples = new int[this.nSlices];
+		lastSlice = -1;
+
+		initializeChanged();
+	}
+
+	/**
+	 * Initializes the arrays that keep track of the changed bars
+	 */
+	protected void initializeChanged() {
+		int nBins = binner.getNBins();
+		changed = new boolean[nBins];
+		changedBins = new int[nBins];
+		nChanged = 0;
+	}
+
+	/**
+	 * Checks if the histogram uses a time window
+	 * 
+	 * @return true if the histogram uses a time window
+	 */
+	public boolean isTimeWindow() {
+		return nSlices > 0;
+	}
+
+	/**
+	 * Marks a bar as changed
+	 * 
+	 * @param bin the bar bin index
+	 */
+	protected void markChanged(int bin) {
+		if (!changed[bin]) {
+			changed[bin] = true;
+			changedBins[nChanged] = bin;
+			nChanged++;
+		}
+	}
+
+	/**
+	 * Adds a new sample. Time windows use the current time as the sample arrival time
+	 * 
+	 * @param value the sample value
+	 */
+	public void add(float value) {
+		add(value, System.currentTimeMillis());
+	}
+
+	/**
+	 * Adds a new sample
+	 * 
+	 * @param value the sample value
+	 * @param timeMillis the sample arrival time in milliseconds. It's only used by time windows
+	 */
+	public void add(float value, long timeMillis) {
+		int bin = binner.binIndex(value);
+		boolean inBins = bin >= 0 && bin < binner.nBins;
+
+		if (isTimeWindow()) {
+			long slice = timeMillis / sliceMillis;
+			advance(timeMillis);
+
+			// Ignore samples that are already too old
+			if (slice <= lastSlice - nSlices) {
+				return;
+			}
+
+			int pos = (int) (slice % nSlices);
+			sliceIds[pos] = slice;
+			sliceNSamples[pos]++;
+
+			if (inBins) {
+				sliceCounts[pos][bin]++;
+			}
+		} else {
+			// Remove the oldest sample if the window is full
+			if (nSamples == maxSamples) {
+				int oldBin = sampleBins[firstSample];
+				firstSample = (firstSample + 1) % maxSamples;
+				nSamples--;
+
+				if (oldBin >= 0 && oldBin < binner.nBins) {
+					binner.counts[oldBin]--;
+					markChanged(oldBin);
+				}
+			}
+
+			sampleBins[(firstSample + nSamples) % maxSamples] = bin;
+		}
+
+		nSamples++;
+
+		if (inBins) {
+			binner.counts[bin]++;
+			markChanged(bin);
+		}
+	}
+
+	/**
+	 * Adds some samples
+	 * 
+	 * @param values the sample values
+	 */
+	public void add(float[] values) {
+		long timeMillis = System.currentTimeMillis();
+
+		for (int i = 0; i < values.length; i++) {
+			add(values[i], timeMillis);
+		}
+	}
+
+	/**
+	 * Moves a time window forward, removing the samples in the slices that are now outside the window. It should be
+	 * called regularly (e.g. once per frame) so the samples expire even if no new samples arrive
+	 * 
+	 * @param timeMillis the current time in milliseconds
+	 */
+	public void advance(long timeMillis) {
+		if (isTimeWindow()) {
+			long slice = timeMillis / sliceMillis;
+
+			if (slice > lastSlice) {
+				lastSlice = slice;
+
+				for (int pos = 0; pos < nSlices; pos++) {
+					if (sliceIds[pos] >= 0 && sliceIds[pos] <= slice - nSlices) {
+						expireSlice(pos);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves a time window forward to the current time
+	 */
+	public void advance() {
+		advance(System.currentTimeMillis());
+	}
+
+	/**
+	 * Removes the samples of a given time slice from the window counts
+	 * 
+	 * @param pos the slice position
+	 */
+	protected void expireSlice(int pos) {
+		int[] counts = sliceCounts[pos];
+
+		for (int bin = 0; bin < counts.length; bin++) {
+			if (counts[bin] != 0) {
+				binner.counts[bin] -= counts[bin];
+				counts[bin] = 0;
+				markChanged(bin);
+			}
+		}
+
+		nSamples -= sliceNSamples[pos];
+		sliceNSamples[pos] = 0;
+		sliceIds[pos] = -1;
+	}
+
+	/**
+	 * Removes all the samples from the window
+	 */
+	public void clear() {
+		for (int bin = 0; bin < binner.nBins; bin++) {
+			if (binner.counts[bin] != 0) {
+				markChanged(bin);
+			}
+		}
+
+		binner.clear();
+		nSamples = 0;
+		firstSample = 0;
+
+		if (isTimeWindow()) {
+			for (int pos = 0; pos < nSlices; pos++) {
+				Arrays.fill(sliceCounts[pos], 0);
+			}
+
+			Arrays.fill(sliceIds, -1);
+			Arrays.fill(sliceNSamples, 0);
+		}
+	}
+
+	/**
+	 * Sends the bars that changed since the last update to a layer. All the bars are sent if the layer doesn't have one
+	 * point per bin
+	 * 
+	 * @param layer the layer that displays the histogram
+	 * 
+	 * @return the number of bars sent to the layer
+	 */
+	public int update(GLayer layer) {
+		int nBins = binner.getNBins();
+		int nUpdated;
+
+		if (layer.getPointsRef().getNPoints() != nBins) {
+			layer.setPoints(binner.getPoints());
+			nUpdated = nBins;
+		} else {
+			for (int i = 0; i < nChanged; i++) {
+				int bin = changedBins[i];
+				layer.setPoint(bin, binner.getBinCenter(bin), binner.counts[bin], "");
+			}
+
+			nUpdated = nChanged;
+		}
+
+		// Reset the changed bars
+		for (int i = 0; i < nChanged; i++) {
+			changed[changedBins[i]] = false;
+		}
+
+		nChanged = 0;
+
+		return nUpdated;
+	}
+
+	/**
+	 * Sends the bars that changed since the last update to one of the plot layers, and updates the plot limits once if
+	 * any bar changed
+	 * 
+	 * @param plot the plot
+	 * @param layerId the id of the layer that displays the histogram
+	 * 
+	 * @return the number of bars sent to the layer
+	 */
+	public int update(GPlot plot, String layerId) {
+		GLayer layer = plot.getLayer(layerId);
+
+		if (layer == null) {
+			return 0;
+		}
+
+		int nUpdated = update(layer);
+
+		if (nUpdated > 0) {
+			plot.updateLimits();
+		}
+
+		return nUpdated;
+	}
+
+	/**
+	 * Returns the histogram points. The x coordinates are the bin centers and the y coordinates the window counts
+	 * 
+	 * @return the histogram points
+	 */
+	public GPointsArray getPoints() {
+		return binner.getPoints();
+	}
+
+	/**
+	 * Returns the number of samples in the window
+	 * 
+	 * @return the number of samples in the window
+	 */
+	public int getNSamples() {
+		return nSamples;
+	}
+
+	/**
+	 * Returns the number of bars that changed since the last update
+	 * 
+	 * @return the number of bars that changed since the last update
+	 */
+	public int getNChanged() {
+		return nChanged;
+	}
+
+	/**
+	 * Returns the binner that holds the bins geometry and the window counts
+	 * 
+	 * @return the binner
+	 */
+	public GBinner getBinner() {
+		return binner;
+	}
+}
@@ -0,0 +1,189 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+import java.util.Arrays;
+
+/**
+ * Spatial hash class. It stores a set of axis aligned rectangles in a grid of square cells and answers quickly if a
+ * new rectangle overlaps any of them. The grid cells are hashed into a fixed number of buckets, so the grid doesn't
+ * need to be bounded. All the storage is kept in primitive arrays that are reused after a reset.
+ * 
+ * @author ##author##
+ */
+public class GSpatialHash {
+	// Grid properties
+	protected float cellSize;
+	protected int[] buckets;
+
+	// Rectangles
+	protected int nRectangles;
+	protected float[] rectangles;
+
+	// Cell entries. Each entry points to a rectangle and to the next entry in the same bucket
+	protected int nEntries;
+	protected int[] entryRectangles;
+	protected int[] entryNext;
+
+	/**
+	 * Constructor
+	 */
+	public GSpatialHash() {
+		cellSize = 1;
+		buckets = new int[64];
+		Arrays.fill(buckets, -1);
+		nRectangles = 0;
+		rectangles = new float[4 * 16];
+		nEntries = 0;
+		entryRectangles = new int[64];
+		entryNext = new int[64];
+	}
+
+	/**
+	 * Removes all the rectangles and sets the cell size and the expected number of rectangles
+	 * 
+	 * @param newCellSize the new cell size. It should be similar to the typical rectangle size
+	 * @param expectedRectangles the expected number of rectangles
+	 */
+	public void reset(float newCellSize, int expectedRectangles) {
+		cellSize = (newCellSize > 0) ? newCellSize : 1;
+
+		// Use a power of two number of buckets, about two per expected rectangle
+		int nBuckets = 64;
+
+		while (nBuckets < 2 * expectedRectangles && nBuckets < (1 << 20)) {
+			nBuckets <<= 1;
+		}
+
+		if (buckets.length != nBuckets) {
+			buckets = new int[nBuckets];
+		}
+
+		Arrays.fill(buckets, -1);
+		nRectangles = 0;
+		nEntries = 0;
+	}
+
+	/**
+	 * Calculates the bucket index of a given grid cell
+	 * 
+	 * @param xCell the cell x index
+	 * @param yCell the cell y index
+	 * 
+	 * @return the bucket index
+	 */
+	protected int bucketIndex(int xCell, int yCell) {
+		int h = xCell * 73856093 ^ yCell * 19349663;
+		h ^= h >>> 16;
+
+		return h & (buckets.length - 1);
+	}
+
+	/**
+	 * Checks if a rectangle overlaps any of the stored rectangles
+	 * 
+	 * @param x1 the rectangle left side
+	 * @param y1 the rectangle top side
+	 * @param x2 the rectangle right side
+	 * @param y2 the rectangle bottom side
+	 * 
+	 * @return true if the rectangle overlaps a stored rectangle
+	 */
+	public boolean overlaps(float x1, float y1, float x2, float y2) {
+		int xCell1 = (int) Math.floor(x1 / cellSize);
+		int xCell2 = (int) Math.floor(x2 / cellSize);
+		int yCell1 = (int) Math.floor(y1 / cellSize);
+		int yCell2 = (int) Math.floor(y2 / cellSize);
+
+		for (int xCell = xCell1; xCell <= xCell2; xCell++) {
+			for (int yCell = yCell1; yCell <= yCell2; yCell++) {
+				for (int e = buckets[bucketIndex(xCell, yCell)]; e >= 0; e = entryNext[e]) {
+					int r = 4 * entryRectangles[e];
+
+					if (x1 < rectangles[r + 2] && rectangles[r] < x2 && y1 < rectangles[r + 3]
+							&& rectangles[r + 1] < y2) {
+						return true;
+					}
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Adds a rectangle to the spatial hash
+	 * 
+	 * @param x1 the rectangle left side
+	 * @param y1 the rectangle top side
+	 * @param x2 the rectangle right side
+	 * @param y2 the rectangle bottom side
+	 */
+	public void add(float x1, float y1, float x2, float y2) {
+		if (4 * (nRectangles + 1) > rectangles.length) {
+			rectangles = Arrays.copyOf(rectangles, 2 * rectangles.length);
+		}
+
+		int r = 4 * nRectangles;
+		rectangles[r] = x1;
+		rectangles[r + 1] = y1;
+		rectangles[r + 2] = x2;
+		rectangles[r + 3] = y2;
+
+		int xCell1 = (int) Math.floor(x1 / cellSize);
+		int xCell2 = (int) Math.floor(x2 / cellSize);
+		int yCell1 = (int) Math.floor(y1 / cellSize);
+		int yCell2 = (int) Math.floor(y2 / cellSize);
+
+		for (int xCell = xCell1; xCell <= xCell2; xCell++) {
+			for (int yCell = yCell1; yCell <= yCell2; yCell++) {
+				if (nEntries == entryRectangles.length) {
+					entryRectangles = Arrays.copyOf(entryRectangles, 2 * nEntries);
+					entryNext = Arrays.copyOf(entryNext, 2 * nEntries);
+				}
+
+				int bucket = bucketIndex(xCell, yCell);
+				entryRectangles[nEntries] = nRectangles;
+				entryNext[nEntries] = buckets[bucket];
+				buckets[bucket] = nEntries;
+				nEntries++;
+			}
+		}
+
+		nRectangles++;
+	}
+
+	/**
+	 * Returns the number of rectangles in the spatial hash
+	 * 
+	 * @return the number of rectangles
+	 */
+	public int getNRectangles() {
+		return nRectangles;
+	}
+}
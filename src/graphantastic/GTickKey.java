@@ -0,0 +1,102 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+/**
+ * Tick key class. It describes the axis properties that determine the axis ticks: the limits, the scale and the
+ * requested number of ticks or tick separation. Two tick keys with the same properties are equal, so they can be used
+ * to find the tick set of some axis limits without calculating it again.
+ * 
+ * @author ##author##
+ */
+public class GTickKey {
+	// The axis properties
+	protected boolean log;
+	protected float lowerLim;
+	protected float upperLim;
+	protected int nTicks;
+	protected float ticksSeparation;
+
+	/**
+	 * Constructor. It creates an empty tick key that can be filled with the set method
+	 */
+	public GTickKey() {
+	}
+
+	/**
+	 * Constructor. It creates a copy of another tick key
+	 * 
+	 * @param tickKey the tick key to copy
+	 */
+	public GTickKey(GTickKey tickKey) {
+		set(tickKey.log, tickKey.lowerLim, tickKey.upperLim, tickKey.nTicks, tickKey.ticksSeparation);
+	}
+
+	/**
+	 * Sets the tick key properties
+	 * 
+	 * @param newLog true if the axis scale is logarithmic
+	 * @param newLowerLim the first axis limit
+	 * @param newUpperLim the second axis limit
+	 * @param newNTicks the requested number of ticks
+	 * @param newTicksSeparation the requested tick separation
+	 */
+	public void set(boolean newLog, float newLowerLim, float newUpperLim, int newNTicks, float newTicksSeparation) {
+		log = newLog;
+		lowerLim = newLowerLim;
+		upperLim = newUpperLim;
+		nTicks = newLog ? 0 : newNTicks;
+		ticksSeparation = newLog ? 0 : newTicksSeparation;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (!(obj instanceof GTickKey)) {
+			return false;
+		}
+
+		GTickKey other = (GTickKey) obj;
+
+		return log == other.log && Float.floatToIntBits(lowerLim) == Float.floatToIntBits(other.lowerLim)
+				&& Float.floatToIntBits(upperLim) == Float.floatToIntBits(other.upperLim) && nTicks == other.nTicks
+				&& Float.floatToIntBits(ticksSeparation) == Float.floatToIntBits(other.ticksSeparation);
+	}
+
+	@Override
+	public int hashCode() {
+		int h = log ? 1 : 0;
+		h = 31 * h + Float.floatToIntBits(lowerLim);
+		h = 31 * h + Float.floatToIntBits(upperLim);
+		h = 31 * h + nTicks;
+		h = 31 * h + Float.floatToIntBits(ticksSeparation);
+
+		return h;
+	}
+}
@@ -0,0 +1,178 @@
+/**
+ * ##library.name##
+ * ##library.sentence##
+ * ##library.url##
+ *
+ * Copyright ##copyright## ##author##
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ * 
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General
+ * Public License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ * Boston, MA  02111-1307  USA
+ * 
+ * @author      ##author##
+ * @modified    ##date##
+ * @version     ##library.prettyVersion## (##library.version##)
+ */
+
+package graphantastic;
+
+/**
+ * Tick set class. It describes a set of axis ticks without rounding errors. Linear ticks are stored as integer
+ * multiples of a power of ten (first, first + step, first + 2 step, ...), and logarithmic ticks as a range of decimal
+ * exponents. Two tick sets with the same description are equal, so they can be used as keys in a tick cache.
+ * 
+ * @author ##author##
+ */
+public class GTickSet {
+	// Tick set description
+	protected boolean log;
+	protected int precision;
+	protected long first;
+	protected long step;
+	protected int n;
+
+	// The tick values
+	protected float[] ticks;
+
+	/**
+	 * Constructor. It creates an empty tick set that can be filled with the set method
+	 */
+	public GTickSet() {
+		ticks = null;
+	}
+
+	/**
+	 * Constructor. It creates a copy of the description of another tick set and calculates the tick values
+	 * 
+	 * @param tickSet the tick set to copy
+	 */
+	public GTickSet(GTickSet tickSet) {
+		set(tickSet.log, tickSet.precision, tickSet.first, tickSet.step, tickSet.n);
+		calculateTicks();
+	}
+
+	/**
+	 * Calculates the value of a decimal number expressed as an integer number of units of 10^-precision
+	 * 
+	 * @param units the number of units
+	 * @param precision the number of decimal digits. It can be negative
+	 * 
+	 * @return the closest float value
+	 */
+	public static float unitsToValue(long units, int precision) {
+		// Divide by exact powers of ten instead of multiplying by inexact ones
+		return (precision >= 0) ? (float) (units / Math.pow(10, precision))
+				: (float) (units * Math.pow(10, -precision));
+	}
+
+	/**
+	 * Rounds a number to a given number of decimal digits and returns the result as an integer number of units of
+	 * 10^-precision. Half units are rounded away from zero
+	 * 
+	 * @param value the number to round
+	 * @param precision the number of decimal digits. It can be negative
+	 * 
+	 * @return the rounded number of units
+	 */
+	public static long valueToUnits(float value, int precision) {
+		double scaled = (precision >= 0) ? value * Math.pow(10, precision) : value / Math.pow(10, -precision);
+
+		return (scaled >= 0) ? (long) Math.floor(scaled + 0.5) : -(long) Math.floor(-scaled + 0.5);
+	}
+
+	/**
+	 * Sets the tick set description. The tick values are not calculated
+	 * 
+	 * @param newLog true if the ticks are logarithmic
+	 * @param newPrecision the number of decimal digits of the linear ticks
+	 * @param newFirst the first linear tick in units of 10^-precision, or the first exponent for logarithmic ticks
+	 * @param newStep the linear tick separation in units of 10^-precision. Not used for logarithmic ticks
+	 * @param newN the number of linear ticks, or the number of decades for logarithmic ticks
+	 */
+	public void set(boolean newLog, int newPrecision, long newFirst, long newStep, int newN) {
+		log = newLog;
+		precision = newLog ? 0 : newPrecision;
+		first = newFirst;
+		step = newLog ? 0 : newStep;
+		n = newN;
+	}
+
+	/**
+	 * Calculates the tick values from the tick set description
+	 */
+	protected void calculateTicks() {
+		if (log) {
+			// 9 ticks per decade plus the last power of ten
+			ticks = new float[n * 9 + 1];
+
+			for (int i = 0; i < n; i++) {
+				int exp = (int) first + i;
+
+				for (int j = 0; j < 9; j++) {
+					ticks[i * 9 + j] = unitsToValue(j + 1, -exp);
+				}
+			}
+
+			ticks[ticks.length - 1] = unitsToValue(1, -(int) first - n);
+		} else {
+			ticks = new float[n];
+
+			for (int i = 0; i < n; i++) {
+				ticks[i] = unitsToValue(first + i * step, precision);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of ticks in the set
+	 * 
+	 * @return the number of ticks in the set
+	 */
+	public int getNTicks() {
+		return (ticks != null) ? ticks.length : 0;
+	}
+
+	/**
+	 * Returns the tick values
+	 * 
+	 * @return the tick values
+	 */
+	public float[] getTicksRef() {
+		return ticks;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (!(obj instanceof GTickSet)) {
+			return false;
+		}
+
+		GTickSet other = (GTickSet) obj;
+
+		return log == other.log && precision == other.precision && first == other.first && step == other.step
+				&& n == other.n;
+	}
+
+	@Override
+	public int hashCode() {
+		long h = (log ? 1 : 0) + 31 * precision;
+		h = 31 * h + first;
+		h = 31 * h + step;
+		h = 31 * h + n;
+
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -53,6 +53,7 @@ public class GTitle implements PConstants {
 	protected int fontColor;
 	protected int fontSize;
 	protected PFont font;
+	protected Thread fontThread;
 
 	/**
 	 * Constructor
@@ -73,7 +74,8 @@ public class GTitle implements PConstants {
 		fontName = "SansSerif.bold";
 		fontColor = this.parent.color(100);
 		fontSize = 13;
-		font = this.parent.createFont(fontName, fontSize);
+		font = GFontRegistry.obtain(this.parent, fontName, fontSize);
+		fontThread = Thread.currentThread();
 	}
 
 	/**
@@ -81,7 +83,7 @@ public class GTitle implements PConstants {
 	 */
 	public void draw() {
 		parent.pushStyle();
-		parent.textFont(font);
+		parent.textFont(obtainFont());
 		parent.textSize(fontSize);
 		parent.fill(fontColor);
 		parent.noStroke();
@@ -152,6 +154,28 @@ public class GTitle implements PConstants {
 		}
 	}
 
+	/**
+	 * Returns the font used to draw the text. The cached font is only replaced when it was obtained from a different
+	 * thread, because the font objects can't be shared between threads
+	 * 
+	 * @return the font used to draw the text
+	 */
+	protected PFont obtainFont() {
+		if (font == null || fontThread != Thread.currentThread()) {
+			updateFont();
+		}
+
+		return font;
+	}
+
+	/**
+	 * Updates the cached font after a change in the font properties
+	 */
+	protected void updateFont() {
+		font = GFontRegistry.obtain(parent, fontName, fontSize);
+		fontThread = Thread.currentThread();
+	}
+
 	/**
 	 * Sets the font name
 	 * 
@@ -159,7 +183,7 @@ public class GTitle implements PConstants {
 	 */
 	public void setFontName(String newFontName) {
 		fontName = newFontName;
-		font = parent.createFont(fontName, fontSize);
+		updateFont();
 	}
 
 	/**
@@ -179,7 +203,7 @@ public class GTitle implements PConstants {
 	public void setFontSize(int newFontSize) {
 		if (newFontSize > 0) {
 			fontSize = newFontSize;
-			font = parent.createFont(fontName, fontSize);
+			updateFont();
 		}
 	}
 
@@ -195,7 +219,7 @@ public class GTitle implements PConstants {
 			fontName = newFontName;
 			fontColor = newFontColor;
 			fontSize = newFontSize;
-			font = parent.createFont(fontName, fontSize);
+			updateFont();
 		}
 	}
 }